@@ -0,0 +1,122 @@
+package com.oleksiity.usersapi.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.oleksiity.usersapi.controller.payload.CreateUpdateUserPayload;
+import com.oleksiity.usersapi.controller.payload.UserFilter;
+import com.oleksiity.usersapi.controller.payload.UserSortField;
+import com.oleksiity.usersapi.dto.ApiResponseDto;
+import com.oleksiity.usersapi.dto.Pagination;
+import com.oleksiity.usersapi.dto.UserDto;
+import com.oleksiity.usersapi.entity.User;
+import com.oleksiity.usersapi.mapper.UserMapper;
+import com.oleksiity.usersapi.mapper.UserMapperImpl;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.net.URI;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Per-request CPU work of the users endpoints, without the servlet container and the database.
+ * Run with the gc profiler to see the allocation rate next to the throughput.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserRequestHotPathBenchmark {
+
+    @Param({"10", "100"})
+    private int pageSize;
+
+    private final UserMapper userMapper = new UserMapperImpl();
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private final UserController userController = new UserController(null, null, null, null, userMapper, objectMapper);
+
+    private ValidatorFactory validatorFactory;
+
+    private Validator validator;
+
+    private List<User> users;
+
+    private ApiResponseDto<UserDto> response;
+
+    private Slice<User> page;
+
+    private CreateUpdateUserPayload validPayload;
+
+    private CreateUpdateUserPayload invalidPayload;
+
+    @Setup
+    public void setUp() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        validator = validatorFactory.getValidator();
+        users = IntStream.range(0, pageSize)
+                .mapToObj(i -> new User((long) i, "user" + i + "@example.com", "First" + i, "Last" + i,
+                        LocalDate.of(1980, 1, 1).plusDays(i), "Address " + i, "04455234" + (10 + i % 90), 0L))
+                .toList();
+        page = new PageImpl<>(users, PageRequest.of(3, pageSize), 1000L * pageSize);
+        response = ApiResponseDto.<UserDto>builder()
+                .data(userMapper.toDto(users))
+                .pagination(Pagination.builder()
+                        .page(3)
+                        .pageSize(pageSize)
+                        .totalPages(1000L)
+                        .totalElements(1000L * pageSize)
+                        .build())
+                .links(userController.buildPageLinks(page, UserSortField.EMAIL, Sort.Direction.ASC, true, UserFilter.NONE))
+                .build();
+        validPayload = new CreateUpdateUserPayload("sergio@madrid.com", "Sergio", "Ramos",
+                LocalDate.of(1986, 3, 30), "Av. de Concha Espina, 1", "0445523499");
+        invalidPayload = new CreateUpdateUserPayload("not-an-email", " ", "Ramos",
+                LocalDate.now().plusDays(1), null, "04455");
+    }
+
+    @TearDown
+    public void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Benchmark
+    public List<UserDto> mapUsersToDto() {
+        return userMapper.toDto(users);
+    }
+
+    @Benchmark
+    public String serializeResponse() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(response);
+    }
+
+    @Benchmark
+    public Map<String, URI> buildPageLinks() {
+        return userController.buildPageLinks(page, UserSortField.EMAIL, Sort.Direction.ASC, false, UserFilter.NONE);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<CreateUpdateUserPayload>> validateValidPayload() {
+        return validator.validate(validPayload);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<CreateUpdateUserPayload>> validateInvalidPayload() {
+        return validator.validate(invalidPayload);
+    }
+}
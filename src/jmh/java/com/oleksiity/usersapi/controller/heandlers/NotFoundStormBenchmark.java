@@ -0,0 +1,74 @@
+package com.oleksiity.usersapi.controller.heandlers;
+
+import com.oleksiity.usersapi.exception.UserNotFoundException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.context.support.StaticMessageSource;
+import org.springframework.http.ProblemDetail;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A miss of a non-existent user id, thrown below a call stack as deep as the servlet and proxy frames of a
+ * request and turned into a problem detail. The handler logs at most one entry per second, as in production.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NotFoundStormBenchmark {
+
+    @Param({"64", "192"})
+    private int stackDepth;
+
+    private BasicExceptionHandler exceptionHandler;
+
+    @Setup
+    public void setUp() {
+        var messageSource = new StaticMessageSource();
+        messageSource.addMessage("errors.404.title", Locale.ENGLISH, "Error 404: Nothing has been found");
+        messageSource.addMessage("users-api.users.errors.user_not_found", Locale.ENGLISH,
+                "The user with specified id not found");
+        var beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("meterRegistry", new SimpleMeterRegistry());
+        exceptionHandler = new BasicExceptionHandler(messageSource,
+                beanFactory.getBeanProvider(MeterRegistry.class), Duration.ofSeconds(1));
+    }
+
+    @Benchmark
+    public ProblemDetail notFoundWithStackTrace() {
+        try {
+            throwAt(stackDepth, false);
+            return null;
+        } catch (NoSuchElementException e) {
+            return exceptionHandler.handleNoSuchElementException(e, Locale.ENGLISH);
+        }
+    }
+
+    @Benchmark
+    public ProblemDetail notFoundStackless() {
+        try {
+            throwAt(stackDepth, true);
+            return null;
+        } catch (NoSuchElementException e) {
+            return exceptionHandler.handleNoSuchElementException(e, Locale.ENGLISH);
+        }
+    }
+
+    private static void throwAt(int depth, boolean stackless) {
+        if (depth > 0) {
+            throwAt(depth - 1, stackless);
+            return;
+        }
+        throw stackless
+                ? new UserNotFoundException()
+                : new NoSuchElementException("users-api.users.errors.user_not_found");
+    }
+}
@@ -0,0 +1,49 @@
+package com.oleksiity.usersapi.repository;
+
+import com.oleksiity.usersapi.UsersApiApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.event.ApplicationEnvironmentPreparedEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.util.Set;
+
+/**
+ * Starts the application for the benchmarks that fill the user table. The database is a throwaway Testcontainers
+ * PostgreSQL unless {@code spring.datasource.url} points elsewhere, and then only a database on this machine is
+ * accepted, since setup inserts millions of rows.
+ */
+final class BenchmarkApplication {
+
+    private static final String TESTCONTAINERS_URL = "jdbc:tc:postgresql:16:///users_db?TC_DAEMON=true";
+
+    private static final String TESTCONTAINERS_PREFIX = "jdbc:tc:";
+
+    private static final Set<String> LOCAL_HOSTS = Set.of("localhost", "127.0.0.1", "[::1]");
+
+    private BenchmarkApplication() {
+    }
+
+    static ConfigurableApplicationContext start() {
+        return new SpringApplicationBuilder(UsersApiApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.datasource.url=" + TESTCONTAINERS_URL)
+                // Checked before the context starts, so not even the migrations run against another database
+                .listeners((ApplicationListener<ApplicationEnvironmentPreparedEvent>) event ->
+                        requireLocal(event.getEnvironment().getProperty("spring.datasource.url")))
+                .run();
+    }
+
+    private static void requireLocal(String url) {
+        if (url == null || url.startsWith(TESTCONTAINERS_PREFIX)) {
+            return;
+        }
+        var host = url.startsWith("jdbc:") ? URI.create(url.substring("jdbc:".length())).getHost() : null;
+        if (host == null || !LOCAL_HOSTS.contains(host)) {
+            throw new IllegalStateException("Benchmarks fill the user table with generated users and only run "
+                    + "against Testcontainers or a local database, not " + url);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.oleksiity.usersapi.repository;
+
+import com.oleksiity.usersapi.dto.UserDto;
+import com.oleksiity.usersapi.entity.User;
+import com.oleksiity.usersapi.mapper.UserMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * One users page read as managed entities mapped to DTOs against the same page read as a DTO projection.
+ * Runs against a local PostgreSQL, see {@link BenchmarkApplication}, missing rows are inserted on setup.
+ * Run with the gc profiler to compare the allocation per page next to the latency.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserReadPathBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int pageSize;
+
+    private ConfigurableApplicationContext context;
+
+    private UserRepository userRepository;
+
+    private UserMapper userMapper;
+
+    private TransactionTemplate transactionTemplate;
+
+    private TransactionTemplate readOnlyTransactionTemplate;
+
+    private Pageable pageable;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        userRepository = context.getBean(UserRepository.class);
+        userMapper = context.getBean(UserMapper.class);
+        var transactionManager = context.getBean(PlatformTransactionManager.class);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        readOnlyTransactionTemplate.setReadOnly(true);
+        pageable = PageRequest.of(0, pageSize, Sort.Direction.DESC, "id");
+
+        var missing = pageSize - userRepository.count();
+        if (missing > 0) {
+            context.getBean(UserJdbcRepository.class).insertAllIgnoringConflicts(IntStream.range(0, (int) missing)
+                    .mapToObj(i -> new User(null, "bench" + i + "@example.com", "First" + i, "Last" + i,
+                            LocalDate.of(1980, 1, 1).plusDays(i), "Address " + i, null, 0L))
+                    .toList());
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<UserDto> readEntities() {
+        return transactionTemplate.execute(status -> userMapper.toDto(userRepository.findAll(pageable).getContent()));
+    }
+
+    @Benchmark
+    public List<UserDto> readProjection() {
+        return readOnlyTransactionTemplate.execute(status -> userRepository.findAllDtoBy(pageable).getContent());
+    }
+}
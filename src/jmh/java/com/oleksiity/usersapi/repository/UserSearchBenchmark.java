@@ -0,0 +1,69 @@
+package com.oleksiity.usersapi.repository;
+
+import com.oleksiity.usersapi.dto.UserDto;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency distribution of one search page against a local PostgreSQL, see {@link BenchmarkApplication}.
+ * The user table is filled up to {@code -Dbenchmark.search.rows} (5M by default) with generated users on setup.
+ * The p0.99 line of the sample time result is the one to hold against the latency budget.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserSearchBenchmark {
+
+    private static final String FILL_USERS = """
+            insert into user_management.user (email, first_name, last_name, birth_date, address)
+            select 'u' || i || '@' || substr(md5(i::text), 1, 8) || '.com',
+                   initcap(substr(md5('first' || i), 1, 10)),
+                   initcap(substr(md5('last' || i), 1, 12)),
+                   date '1950-01-01' + (i % 18000),
+                   'Street ' || substr(md5('address' || i), 1, 16) || ', ' || i
+            from generate_series(?, ?) as i
+            on conflict do nothing
+            """;
+
+    // "com" is contained in every generated email, the worst case for the number of matches
+    @Param({"com", "3f9a", "ramos", "street 4f"})
+    private String query;
+
+    @Param({"10"})
+    private int pageSize;
+
+    private ConfigurableApplicationContext context;
+
+    private UserJdbcRepository userJdbcRepository;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        userJdbcRepository = context.getBean(UserJdbcRepository.class);
+        var jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        var rows = Long.getLong("benchmark.search.rows", 5_000_000L);
+        var existing = jdbcTemplate.queryForObject("select count(*) from user_management.user", Long.class);
+        if (existing < rows) {
+            jdbcTemplate.update(FILL_USERS, existing + 1, rows);
+            jdbcTemplate.execute("analyze user_management.user");
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<UserDto> searchFirstPage() {
+        return userJdbcRepository.search(query, pageSize + 1, 0);
+    }
+}
@@ -0,0 +1,15 @@
+package com.oleksiity.usersapi.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+// Caching advice wraps the transactional one, so puts and evictions happen after commit
+@Configuration
+@EnableCaching(order = Ordered.HIGHEST_PRECEDENCE)
+public class CacheConfig {
+
+    public static final String USERS_CACHE = "users";
+
+    public static final String USER_RESPONSES_CACHE = "userResponses";
+}
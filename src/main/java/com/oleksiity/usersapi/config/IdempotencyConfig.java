@@ -0,0 +1,25 @@
+package com.oleksiity.usersapi.config;
+
+import com.oleksiity.usersapi.service.IdempotencyStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import java.time.Duration;
+
+// Scheduling runs the removal of expired idempotency keys
+@Configuration
+@EnableScheduling
+public class IdempotencyConfig {
+
+    @Bean
+    public FilterRegistrationBean<IdempotencyFilter> idempotencyFilter(
+            IdempotencyStore idempotencyStore,
+            @Value("${users-api.idempotency.wait-timeout:10s}") Duration waitTimeout) {
+        var registration = new FilterRegistrationBean<>(new IdempotencyFilter(idempotencyStore, waitTimeout));
+        registration.addUrlPatterns("/api/v1/users");
+        return registration;
+    }
+}
@@ -0,0 +1,179 @@
+package com.oleksiity.usersapi.config;
+
+import com.oleksiity.usersapi.dto.IdempotentResponse;
+import com.oleksiity.usersapi.service.IdempotencyStore;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs a POST sent with an {@code Idempotency-Key} header once per key. A retry gets the stored response of
+ * the first request, before validation, mapping or the insert, and a concurrent duplicate waits for it.
+ * A request reusing the key with another body is rejected instead of getting the response of the first one.
+ */
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyStore idempotencyStore;
+
+    private final Duration waitTimeout;
+
+    public IdempotencyFilter(IdempotencyStore idempotencyStore, Duration waitTimeout) {
+        this.idempotencyStore = idempotencyStore;
+        this.waitTimeout = waitTimeout;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !HttpMethod.POST.matches(request.getMethod()) || request.getHeader(IDEMPOTENCY_KEY_HEADER) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        var key = request.getHeader(IDEMPOTENCY_KEY_HEADER).strip();
+        if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST,
+                    IDEMPOTENCY_KEY_HEADER + " must be from 1 to " + MAX_KEY_LENGTH + " characters long");
+            return;
+        }
+        var cachedBodyRequest = new CachedBodyRequest(request);
+        var requestHash = sha256(cachedBodyRequest.body);
+
+        var deadline = System.nanoTime() + waitTimeout.toNanos();
+        // A holder that ends without a response to replay frees the key, and the waiters race to take it over
+        for (var previous = idempotencyStore.acquire(key, requestHash); previous != null;
+             previous = idempotencyStore.acquire(key, requestHash)) {
+            if (!previous.requestHash().equals(requestHash)) {
+                response.sendError(HttpStatus.UNPROCESSABLE_ENTITY.value(),
+                        IDEMPOTENCY_KEY_HEADER + " has already been used for a request with another body");
+                return;
+            }
+            IdempotentResponse previousResponse;
+            try {
+                previousResponse = previous.response().get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                response.sendError(HttpServletResponse.SC_CONFLICT,
+                        "A request with the same " + IDEMPOTENCY_KEY_HEADER + " is still in progress, retry later");
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                return;
+            } catch (ExecutionException e) {
+                continue;
+            }
+            if (previousResponse != null) {
+                replay(previousResponse, response);
+                return;
+            }
+        }
+
+        var responseWrapper = new ContentCachingResponseWrapper(response);
+        try {
+            filterChain.doFilter(cachedBodyRequest, responseWrapper);
+        } catch (Throwable e) {
+            idempotencyStore.fail(key);
+            throw e;
+        }
+        idempotencyStore.complete(key, new IdempotentResponse(requestHash, responseWrapper.getStatus(),
+                responseWrapper.getHeader(HttpHeaders.LOCATION), responseWrapper.getContentType(),
+                responseWrapper.getContentAsByteArray()));
+        responseWrapper.copyBodyToResponse();
+    }
+
+    private static void replay(IdempotentResponse previousResponse, HttpServletResponse response) throws IOException {
+        response.setStatus(previousResponse.status());
+        if (previousResponse.location() != null) {
+            response.setHeader(HttpHeaders.LOCATION, previousResponse.location());
+        }
+        if (previousResponse.contentType() != null) {
+            response.setContentType(previousResponse.contentType());
+        }
+        response.setContentLength(previousResponse.body().length);
+        response.getOutputStream().write(previousResponse.body());
+    }
+
+    private static String sha256(byte[] body) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    // The body is hashed before the request runs, so it is read upfront and served again from memory
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        private CachedBodyRequest(HttpServletRequest request) throws IOException {
+            super(request);
+            this.body = request.getInputStream().readAllBytes();
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            var input = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return input.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public int read() {
+                    return input.read();
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) {
+                    return input.read(buffer, offset, length);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            var encoding = getCharacterEncoding();
+            var charset = encoding == null ? StandardCharsets.UTF_8 : Charset.forName(encoding);
+            return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+        }
+    }
+}
@@ -5,18 +5,26 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.support.ReloadableResourceBundleMessageSource;
 import org.springframework.web.servlet.LocaleResolver;
-import org.springframework.web.servlet.i18n.SessionLocaleResolver;
+import org.springframework.web.servlet.i18n.AcceptHeaderLocaleResolver;
 
+import java.util.List;
 import java.util.Locale;
 
 @Configuration
 public class MessagesConfig {
 
+    public static final Locale DEFAULT_LOCALE = Locale.US;
+
+    // Locales with a messages bundle, error messages are resolved for each of them at startup
+    public static final List<Locale> SUPPORTED_LOCALES = List.of(DEFAULT_LOCALE);
+
+    // Resolved from Accept-Language on every request, so no HTTP session is created to hold the locale
     @Bean
     public LocaleResolver localeResolver() {
-        var slr = new SessionLocaleResolver();
-        slr.setDefaultLocale(Locale.US);
-        return slr;
+        var localeResolver = new AcceptHeaderLocaleResolver();
+        localeResolver.setSupportedLocales(SUPPORTED_LOCALES);
+        localeResolver.setDefaultLocale(DEFAULT_LOCALE);
+        return localeResolver;
     }
 
     @Bean
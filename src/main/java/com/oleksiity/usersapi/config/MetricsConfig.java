@@ -0,0 +1,62 @@
+package com.oleksiity.usersapi.config;
+
+import io.micrometer.common.KeyValues;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.HibernateQueryMetrics;
+import org.springframework.boot.actuate.metrics.data.DefaultRepositoryTagsProvider;
+import org.springframework.boot.actuate.metrics.data.RepositoryTagsProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryMethodInvocationListener;
+import org.springframework.http.server.observation.DefaultServerRequestObservationConvention;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+import org.springframework.http.server.observation.ServerRequestObservationConvention;
+
+// Histograms of the timers are enabled in application.yml under management.metrics.distribution
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public ServerRequestObservationConvention userRequestObservationConvention() {
+        return new DefaultServerRequestObservationConvention() {
+            @Override
+            public KeyValues getLowCardinalityKeyValues(ServerRequestObservationContext context) {
+                var request = context.getCarrier();
+                return super.getLowCardinalityKeyValues(context).and(
+                        UserRequestMetricTags.SORT_FIELD, UserRequestMetricTags.sortField(request),
+                        UserRequestMetricTags.FILTER, UserRequestMetricTags.filter(request));
+            }
+        };
+    }
+
+    // Repository calls are tagged with the sort field and filter of the request that made them
+    @Bean
+    public RepositoryTagsProvider userRepositoryTagsProvider() {
+        return new DefaultRepositoryTagsProvider() {
+            @Override
+            public Iterable<Tag> repositoryTags(RepositoryMethodInvocationListener.RepositoryMethodInvocation invocation) {
+                var request = UserRequestMetricTags.currentRequest();
+                return Tags.of(super.repositoryTags(invocation)).and(
+                        UserRequestMetricTags.SORT_FIELD,
+                        request != null ? UserRequestMetricTags.sortField(request) : UserRequestMetricTags.NONE,
+                        UserRequestMetricTags.FILTER,
+                        request != null ? UserRequestMetricTags.filter(request) : UserRequestMetricTags.NONE);
+            }
+        };
+    }
+
+    // Counts every HQL/SQL query and sums its time, including the count query behind a Page. These are function
+    // timers built from the Hibernate statistics, so they have no histogram and exist only while statistics are on.
+    // The Page count itself is always timed with a histogram, as statement=count of the jdbc statement timer
+    @Bean
+    @ConditionalOnProperty(name = "spring.jpa.properties.hibernate.generate_statistics", havingValue = "true")
+    public MeterBinder hibernateQueryMetrics(EntityManagerFactory entityManagerFactory) {
+        return new HibernateQueryMetrics(entityManagerFactory.unwrap(SessionFactory.class),
+                "entityManagerFactory", Tags.empty());
+    }
+}
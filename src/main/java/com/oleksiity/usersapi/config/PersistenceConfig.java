@@ -0,0 +1,31 @@
+package com.oleksiity.usersapi.config;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.support.SQLStateSQLExceptionTranslator;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+
+@Configuration
+public class PersistenceConfig {
+
+    /**
+     * Hibernate reports every constraint violation as a {@link org.springframework.dao.DataIntegrityViolationException},
+     * so JPA writes are translated by SQL state like the {@code JdbcTemplate} ones: a unique violation becomes a
+     * {@link org.springframework.dao.DuplicateKeyException} whether it is raised on save or on flush at commit.
+     */
+    @Bean
+    public static BeanPostProcessor jpaExceptionTranslatorPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof HibernateJpaVendorAdapter vendorAdapter
+                        && vendorAdapter.getJpaDialect() instanceof HibernateJpaDialect jpaDialect) {
+                    jpaDialect.setJdbcExceptionTranslator(new SQLStateSQLExceptionTranslator());
+                }
+                return bean;
+            }
+        };
+    }
+}
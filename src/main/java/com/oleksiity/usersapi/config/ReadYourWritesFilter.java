@@ -0,0 +1,69 @@
+package com.oleksiity.usersapi.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Gives every write response a token with the time until which the client should read from the primary.
+ * Reads that send the token back before it expires skip the replica, which may not have the write yet.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    public static final String PRIMARY_UNTIL_HEADER = "X-Read-Primary-Until";
+
+    private static final Set<String> READ_METHODS = Set.of(
+            HttpMethod.GET.name(), HttpMethod.HEAD.name(), HttpMethod.OPTIONS.name());
+
+    private final Duration window;
+
+    private final Clock clock;
+
+    public ReadYourWritesFilter(Duration window, Clock clock) {
+        this.window = window;
+        this.clock = clock;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        var now = clock.millis();
+        if (!READ_METHODS.contains(request.getMethod())) {
+            response.setHeader(PRIMARY_UNTIL_HEADER, Long.toString(now + window.toMillis()));
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        var primaryUntil = parse(request.getHeader(PRIMARY_UNTIL_HEADER));
+        // Tokens further ahead than one window were not issued here and would keep the client off the replica
+        if (primaryUntil <= now || primaryUntil > now + window.toMillis()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        ReplicaRoutingDataSource.pinToPrimary();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ReplicaRoutingDataSource.unpin();
+        }
+    }
+
+    private static long parse(String token) {
+        if (token == null) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(token.trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
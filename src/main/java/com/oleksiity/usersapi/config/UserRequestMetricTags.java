@@ -0,0 +1,76 @@
+package com.oleksiity.usersapi.config;
+
+import com.oleksiity.usersapi.controller.payload.UserSortField;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.stream.Collectors;
+
+/**
+ * Low-cardinality tags describing how a users request is sorted and filtered.
+ */
+final class UserRequestMetricTags {
+
+    static final String SORT_FIELD = "sortField";
+
+    static final String FILTER = "filter";
+
+    static final String NONE = "none";
+
+    private static final String DEFAULT = "default";
+
+    private static final String INVALID = "invalid";
+
+    private static final List<String> OTHER_FILTERS = List.of("namePrefix", "hasPhone", "emailDomain");
+
+    private static final Set<String> SORT_FIELDS = Arrays.stream(UserSortField.values())
+            .map(Enum::name)
+            .collect(Collectors.toUnmodifiableSet());
+
+    private UserRequestMetricTags() {
+    }
+
+    static String sortField(HttpServletRequest request) {
+        var sortField = request.getParameter(SORT_FIELD);
+        if (sortField == null) {
+            return DEFAULT;
+        }
+        return SORT_FIELDS.contains(sortField) ? sortField : INVALID;
+    }
+
+    /**
+     * Names of the applied filters joined by '+', the age and date bounds all count as one birth date range.
+     */
+    static String filter(HttpServletRequest request) {
+        var filters = new StringJoiner("+");
+        filters.setEmptyValue(NONE);
+        if (hasAny(request, "startDate", "endDate", "minAge", "maxAge")) {
+            filters.add("birthDateRange");
+        }
+        for (var filter : OTHER_FILTERS) {
+            if (request.getParameter(filter) != null) {
+                filters.add(filter);
+            }
+        }
+        return filters.toString();
+    }
+
+    private static boolean hasAny(HttpServletRequest request, String... parameters) {
+        for (var parameter : parameters) {
+            if (request.getParameter(parameter) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static HttpServletRequest currentRequest() {
+        return RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes
+                ? attributes.getRequest() : null;
+    }
+}
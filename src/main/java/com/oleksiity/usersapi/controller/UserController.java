@@ -1,28 +1,51 @@
 package com.oleksiity.usersapi.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.oleksiity.usersapi.controller.payload.CreateUpdateUserPayload;
+import com.oleksiity.usersapi.controller.payload.UserCursor;
+import com.oleksiity.usersapi.controller.payload.UserFilter;
 import com.oleksiity.usersapi.controller.payload.UserSortField;
 import com.oleksiity.usersapi.dto.ApiResponseDto;
+import com.oleksiity.usersapi.dto.CursorPage;
 import com.oleksiity.usersapi.dto.Pagination;
+import com.oleksiity.usersapi.dto.UserBatchResultDto;
 import com.oleksiity.usersapi.dto.UserDto;
 import com.oleksiity.usersapi.entity.User;
 import com.oleksiity.usersapi.mapper.UserMapper;
+import com.oleksiity.usersapi.dto.UserImportResultDto;
+import com.oleksiity.usersapi.service.UserImportService;
+import com.oleksiity.usersapi.service.UserResponseCache;
 import com.oleksiity.usersapi.service.UserService;
+import com.oleksiity.usersapi.service.UserTableVersion;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("api/v1/users")
@@ -31,11 +54,21 @@ public class UserController {
 
     private final String CREATED_USER = "/api/v1/users/{id}";
     private final String BASE_URL = "/api/v1/users";
+    private static final String TEXT_CSV_VALUE = "text/csv";
+    private static final String GZIP_ETAG_SUFFIX = "-gzip";
 
     private final UserService userService;
 
+    private final UserImportService userImportService;
+
+    private final UserTableVersion userTableVersion;
+
+    private final UserResponseCache userResponseCache;
+
     private final UserMapper userMapper;
 
+    private final ObjectMapper objectMapper;
+
     @PostMapping()
     public ResponseEntity<ApiResponseDto<?>> registerUser(@Valid @RequestBody CreateUpdateUserPayload userPayload) {
         var user = userService.registerUser(userPayload);
@@ -49,64 +82,260 @@ public class UserController {
 
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<ApiResponseDto<?>> registerUsers(@RequestBody List<CreateUpdateUserPayload> userPayloads) {
+        var results = userService.registerUsers(userPayloads);
+
+        return ResponseEntity.ok(ApiResponseDto.<UserBatchResultDto>builder()
+                .data(results)
+                .build());
+    }
+
+    @PostMapping(value = "/import", consumes = TEXT_CSV_VALUE)
+    public ResponseEntity<ApiResponseDto<?>> importUsersFromCsv(HttpServletRequest request) throws IOException {
+        return importUsers(request, UserImportService.Format.CSV);
+    }
+
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<ApiResponseDto<?>> importUsersFromNdjson(HttpServletRequest request) throws IOException {
+        return importUsers(request, UserImportService.Format.NDJSON);
+    }
+
     @GetMapping()
     public ResponseEntity<ApiResponseDto<?>> getAllUsers(@RequestParam(defaultValue = "0") int page,
                                                          @RequestParam(defaultValue = "10") int pageSize,
                                                          @RequestParam(defaultValue = "ID") UserSortField sortField,
                                                          @RequestParam(defaultValue = "DESC") Sort.Direction sortDirection,
-                                                         @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
-                                                         @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+                                                         UserFilter filter,
+                                                         @RequestParam(required = false) String cursor,
+                                                         @RequestParam(defaultValue = "true") boolean includeTotals,
+                                                         ServletWebRequest webRequest) {
+        // Captured before the query, so a change committed meanwhile makes the next request miss. There is no
+        // Last-Modified, its one-second granularity would validate a change made within the same second.
+        // A 304 still costs this one read of the version slots, in place of the page and its count
+        var tableVersion = userTableVersion.current();
+        if (webRequest.checkNotModified(tableVersion.eTag(webRequest.getRequest().getQueryString()))) {
+            return null;
+        }
+
+        if (cursor != null) {
+            return getAllUsersByCursor(cursor, pageSize, sortField, sortDirection, filter);
+        }
+
         var pageable = PageRequest.of(page, pageSize, sortDirection, sortField.getDatabaseFieldName());
-        Page<User> userPage;
-        if (startDate != null && endDate != null) {
-            userPage = userService.getAllUsersByDateRange(pageable, startDate, endDate);
+        Slice<UserDto> userPage;
+        if (!filter.isEmpty()) {
+            userPage = includeTotals
+                    ? userService.getAllUsers(pageable, filter)
+                    : userService.getAllUsersSlice(pageable, filter);
         } else {
-            userPage = userService.getAllUsers(pageable);
+            userPage = includeTotals
+                    ? userService.getAllUsers(pageable)
+                    : userService.getAllUsersSlice(pageable);
         }
 
         return ResponseEntity.ok(
                 ApiResponseDto.<UserDto>builder()
-                        .data(userMapper.toDto(userPage.getContent()))
+                        .data(userPage.getContent())
+                        .pagination(buildPagination(userPage))
+                        .links(buildPageLinks(userPage, sortField, sortDirection, includeTotals, filter))
+                        .build()
+        );
+    }
+
+    private ResponseEntity<ApiResponseDto<?>> getAllUsersByCursor(String cursor, int pageSize,
+                                                                  UserSortField sortField, Sort.Direction sortDirection,
+                                                                  UserFilter filter) {
+        var userCursor = cursor.isBlank() ? UserCursor.first(sortField, sortDirection) : UserCursor.decode(cursor);
+        CursorPage<User> userWindow;
+        if (!filter.isEmpty()) {
+            userWindow = userService.getAllUsers(userCursor, pageSize, filter);
+        } else {
+            userWindow = userService.getAllUsers(userCursor, pageSize);
+        }
+
+        return ResponseEntity.ok(
+                ApiResponseDto.<UserDto>builder()
+                        .data(userMapper.toDto(userWindow.content()))
                         .pagination(Pagination.builder()
-                                .page(userPage.getNumber())
-                                .pageSize(userPage.getSize())
-                                .totalPages(userPage.getTotalPages())
-                                .totalElements(userPage.getTotalElements())
+                                .pageSize(pageSize)
                                 .build())
-                        .links(buildPageLinks(userPage, sortField, sortDirection))
+                        .links(buildCursorLinks(userWindow, userCursor, pageSize, filter))
                         .build()
         );
     }
 
+    @GetMapping("/search")
+    public ResponseEntity<ApiResponseDto<?>> searchUsers(@RequestParam String q,
+                                                         @RequestParam(defaultValue = "0") int page,
+                                                         @RequestParam(defaultValue = "10") int pageSize) {
+        var userPage = userService.searchUsers(q, PageRequest.of(page, pageSize));
+
+        return ResponseEntity.ok(
+                ApiResponseDto.<UserDto>builder()
+                        .data(userPage.getContent())
+                        .pagination(buildPagination(userPage))
+                        .links(buildSearchLinks(userPage, q))
+                        .build()
+        );
+    }
+
+    @GetMapping("/export")
+    public void exportUsers(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+                            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+                            HttpServletResponse response) throws IOException {
+        var writer = objectMapper.writerFor(UserDto.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        var generator = objectMapper.getFactory().createGenerator(response.getOutputStream());
+        generator.setRootValueSeparator(null);
+        // Content type is set on the first row, so a rejected request still gets a JSON problem detail
+        userService.exportUsers(startDate, endDate, user -> {
+            try {
+                setNdjsonContentType(response);
+                writer.writeValue(generator, userMapper.toDto(user));
+                generator.writeRaw('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        setNdjsonContentType(response);
+        generator.flush();
+    }
+
+    private ResponseEntity<ApiResponseDto<?>> importUsers(HttpServletRequest request,
+                                                          UserImportService.Format format) throws IOException {
+        var result = userImportService.importUsers(request.getInputStream(), format);
+
+        return ResponseEntity.ok(ApiResponseDto.<UserImportResultDto>builder()
+                .data(Collections.singleton(result))
+                .build());
+    }
+
+    private static void setNdjsonContentType(HttpServletResponse response) {
+        if (response.getContentType() == null) {
+            response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        }
+    }
+
+    // The ETag header is set by checkNotModified, the body is written as cached bytes without Jackson. The gzip
+    // body is another representation with its own strong ETag, which If-Match accepts for the same version
     @GetMapping("/{id}")
-    public ResponseEntity<ApiResponseDto<?>> getUser(@PathVariable long id) {
+    public void getUser(@PathVariable long id, ServletWebRequest webRequest,
+                        HttpServletResponse response) throws IOException {
         var user = userService.findUserById(id);
+        var gzip = acceptsGzip(webRequest.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (webRequest.checkNotModified(gzip ? gzipETag(user) : eTag(user))) {
+            return;
+        }
+
+        var encodedUser = userResponseCache.get(user, this::encodeUser);
+        var body = gzip ? encodedUser.gzip() : encodedUser.json();
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        if (gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    @GetMapping("/by-email/{email}")
+    public ResponseEntity<ApiResponseDto<?>> getUserByEmail(@PathVariable String email) {
+        var user = userService.findUserByEmail(email);
+
+        return ResponseEntity.ok()
+                .eTag(eTag(user))
+                .body(ApiResponseDto.<UserDto>builder()
+                        .data(Collections.singleton(userMapper.toDto(user)))
+                        .links(Map.of("ref", buildResourceFefURI(user)))
+                        .build());
+    }
+
+    @PostMapping("/by-email")
+    public ResponseEntity<ApiResponseDto<?>> getUsersByEmails(@RequestBody List<String> emails) {
+        var users = userService.findUsersByEmails(emails);
 
         return ResponseEntity.ok(ApiResponseDto.<UserDto>builder()
-                .data(Collections.singleton(userMapper.toDto(user)))
+                .data(userMapper.toDto(users))
                 .build());
     }
 
-    @PatchMapping("/{id}")
-    public ResponseEntity<ApiResponseDto<?>> updateUser(@Valid @RequestBody UserDto userDto,
-                                                        @PathVariable long id) {
-        var user = userService.updateUser(userDto, id);
+    @GetMapping(params = "ids")
+    public ResponseEntity<ApiResponseDto<?>> getUsersByIds(@RequestParam List<Long> ids) {
+        return usersByIds(ids);
+    }
+
+    // For id lists too long for a query string
+    @PostMapping("/by-id")
+    public ResponseEntity<ApiResponseDto<?>> getUsersByIdsFromBody(@RequestBody List<Long> ids) {
+        return usersByIds(ids);
+    }
+
+    private ResponseEntity<ApiResponseDto<?>> usersByIds(List<Long> ids) {
+        var lookup = userService.findUsersByIds(ids);
 
         return ResponseEntity.ok(ApiResponseDto.<UserDto>builder()
-                .data(Collections.singleton(userMapper.toDto(user)))
-                .links(Map.of("ref", buildResourceFefURI(user)))
+                .data(userMapper.toDto(lookup.users()))
+                .missingIds(lookup.missingIds())
                 .build());
     }
 
+    // Creates the user or replaces all its fields, whichever applies, in a single statement
+    @PutMapping("/by-email/{email}")
+    public ResponseEntity<ApiResponseDto<?>> upsertUserByEmail(@PathVariable String email,
+                                                               @Valid @RequestBody CreateUpdateUserPayload userPayload) {
+        var upsertedUser = userService.upsertUserByEmail(email, userPayload);
+        var user = upsertedUser.user();
+        var userURI = buildResourceFefURI(user);
+
+        var response = upsertedUser.created() ? ResponseEntity.created(userURI) : ResponseEntity.ok();
+        return response
+                .eTag(eTag(user))
+                .body(ApiResponseDto.<UserDto>builder()
+                        .status(upsertedUser.created() ? UserBatchResultDto.Status.CREATED.name()
+                                : UserBatchResultDto.Status.UPDATED.name())
+                        .data(Collections.singleton(userMapper.toDto(user)))
+                        .links(Map.of("ref", userURI))
+                        .build());
+    }
+
+    @PutMapping("/by-email")
+    public ResponseEntity<ApiResponseDto<?>> upsertUsersByEmail(@RequestBody List<CreateUpdateUserPayload> userPayloads) {
+        var results = userService.upsertUsersByEmail(userPayloads);
+
+        return ResponseEntity.ok(ApiResponseDto.<UserBatchResultDto>builder()
+                .data(results)
+                .build());
+    }
+
+    @PatchMapping("/{id}")
+    public ResponseEntity<ApiResponseDto<?>> updateUser(@Valid @RequestBody UserDto userDto,
+                                                        @PathVariable long id,
+                                                        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        var user = userService.updateUser(userDto, id, expectedVersion(ifMatch));
+
+        return ResponseEntity.ok()
+                .eTag(eTag(user))
+                .body(ApiResponseDto.<UserDto>builder()
+                        .data(Collections.singleton(userMapper.toDto(user)))
+                        .links(Map.of("ref", buildResourceFefURI(user)))
+                        .build());
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<ApiResponseDto<?>> replaceUser(@Valid @RequestBody CreateUpdateUserPayload userPayload,
-                                                         @PathVariable long id) {
-        var user = userService.replaceUser(userPayload, id);
+                                                         @PathVariable long id,
+                                                         @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        var user = userService.replaceUser(userPayload, id, expectedVersion(ifMatch));
 
-        return ResponseEntity.ok(ApiResponseDto.<UserDto>builder()
-                .data(Collections.singleton(userMapper.toDto(user)))
-                .links(Map.of("ref", buildResourceFefURI(user)))
-                .build());
+        return ResponseEntity.ok()
+                .eTag(eTag(user))
+                .body(ApiResponseDto.<UserDto>builder()
+                        .data(Collections.singleton(userMapper.toDto(user)))
+                        .links(Map.of("ref", buildResourceFefURI(user)))
+                        .build());
     }
 
     @DeleteMapping("/{id}")
@@ -116,34 +345,176 @@ public class UserController {
         return ResponseEntity.noContent().build();
     }
 
-    private Map<String, URI> buildPageLinks(Page<?> page, UserSortField sortField, Sort.Direction sortDirection) {
+    private byte[] encodeUser(User user) {
+        try {
+            return objectMapper.writeValueAsBytes(ApiResponseDto.<UserDto>builder()
+                    .data(Collections.singleton(userMapper.toDto(user)))
+                    .build());
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Pagination buildPagination(Slice<?> slice) {
+        var pagination = Pagination.builder()
+                .page(slice.getNumber())
+                .pageSize(slice.getSize());
+        if (slice instanceof Page<?> page) {
+            pagination.totalPages((long) page.getTotalPages())
+                    .totalElements(page.getTotalElements());
+        }
+
+        return pagination.build();
+    }
+
+    Map<String, URI> buildPageLinks(Slice<?> page, UserSortField sortField, Sort.Direction sortDirection,
+                                    boolean includeTotals, UserFilter filter) {
+        var includeTotalsParam = includeTotals ? Optional.empty() : Optional.of(false);
         Map<String, URI> map = new HashMap<>();
         if (page.hasNext()) {
             var next = page.nextPageable();
-            var nextPageURI = UriComponentsBuilder
+            var nextPage = UriComponentsBuilder
                     .fromUriString(BASE_URL)
                     .queryParam("page", next.getPageNumber())
                     .queryParam("pageSize", next.getPageSize())
                     .queryParam("sortField", sortField)
                     .queryParam("sortDirection", sortDirection)
-                    .build().toUri();
-            map.put("next", nextPageURI);
+                    .queryParamIfPresent("includeTotals", includeTotalsParam);
+            map.put("next", filterParams(nextPage, filter).encode().build().toUri());
         }
         if (page.hasPrevious()) {
             var prev = page.previousPageable();
-            var prevPageURI = UriComponentsBuilder
+            var prevPage = UriComponentsBuilder
                     .fromUriString(BASE_URL)
                     .queryParam("page", prev.getPageNumber())
                     .queryParam("pageSize", prev.getPageSize())
                     .queryParam("sortField", sortField)
                     .queryParam("sortDirection", sortDirection)
-                    .build().toUri();
-            map.put("prev", prevPageURI);
+                    .queryParamIfPresent("includeTotals", includeTotalsParam);
+            map.put("prev", filterParams(prevPage, filter).encode().build().toUri());
         }
 
         return map.isEmpty() ? null : map;
     }
 
+    private Map<String, URI> buildSearchLinks(Slice<?> page, String query) {
+        Map<String, URI> map = new HashMap<>();
+        if (page.hasNext()) {
+            map.put("next", buildSearchURI(query, page.nextPageable()));
+        }
+        if (page.hasPrevious()) {
+            map.put("prev", buildSearchURI(query, page.previousPageable()));
+        }
+
+        return map.isEmpty() ? null : map;
+    }
+
+    private URI buildSearchURI(String query, Pageable pageable) {
+        return UriComponentsBuilder
+                .fromUriString(BASE_URL + "/search")
+                .queryParam("q", query)
+                .queryParam("page", pageable.getPageNumber())
+                .queryParam("pageSize", pageable.getPageSize())
+                .encode()
+                .build().toUri();
+    }
+
+    private Map<String, URI> buildCursorLinks(CursorPage<User> window, UserCursor cursor, int pageSize,
+                                              UserFilter filter) {
+        Map<String, URI> map = new HashMap<>();
+        var content = window.content();
+        if (window.hasNext() && !content.isEmpty()) {
+            var next = UserCursor.after(content.get(content.size() - 1), cursor.sortField(), cursor.sortDirection());
+            map.put("next", buildCursorURI(next, pageSize, filter));
+        }
+        if (window.hasPrevious() && !content.isEmpty()) {
+            var prev = UserCursor.before(content.get(0), cursor.sortField(), cursor.sortDirection());
+            map.put("prev", buildCursorURI(prev, pageSize, filter));
+        }
+
+        return map.isEmpty() ? null : map;
+    }
+
+    private URI buildCursorURI(UserCursor cursor, int pageSize, UserFilter filter) {
+        var builder = UriComponentsBuilder
+                .fromUriString(BASE_URL)
+                .queryParam("cursor", cursor.encode())
+                .queryParam("pageSize", pageSize);
+        return filterParams(builder, filter).encode().build().toUri();
+    }
+
+    private static UriComponentsBuilder filterParams(UriComponentsBuilder builder, UserFilter filter) {
+        return builder
+                .queryParamIfPresent("startDate", Optional.ofNullable(filter.startDate()))
+                .queryParamIfPresent("endDate", Optional.ofNullable(filter.endDate()))
+                .queryParamIfPresent("minAge", Optional.ofNullable(filter.minAge()))
+                .queryParamIfPresent("maxAge", Optional.ofNullable(filter.maxAge()))
+                .queryParamIfPresent("namePrefix", Optional.ofNullable(filter.namePrefix()))
+                .queryParamIfPresent("hasPhone", Optional.ofNullable(filter.hasPhone()))
+                .queryParamIfPresent("emailDomain", Optional.ofNullable(filter.emailDomain()));
+    }
+
+    private static String eTag(User user) {
+        return "\"" + user.getVersion() + "\"";
+    }
+
+    private static String gzipETag(User user) {
+        return "\"" + user.getVersion() + GZIP_ETAG_SUFFIX + "\"";
+    }
+
+    // Only a single strong ETag can match, anything else is a version no user has
+    private static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        var eTag = ifMatch.trim();
+        if (eTag.length() < 2 || !eTag.startsWith("\"") || !eTag.endsWith("\"")) {
+            return -1L;
+        }
+        var version = eTag.substring(1, eTag.length() - 1);
+        if (version.endsWith(GZIP_ETAG_SUFFIX)) {
+            version = version.substring(0, version.length() - GZIP_ETAG_SUFFIX.length());
+        }
+        try {
+            return Long.valueOf(version);
+        } catch (NumberFormatException e) {
+            return -1L;
+        }
+    }
+
+    // A coding with q=0 is refused, and "*" stands for gzip only when gzip is not listed on its own
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzipQuality = null;
+        Double anyQuality = null;
+        for (var coding : acceptEncoding.split(",")) {
+            var parameters = coding.split(";");
+            var name = parameters[0].strip();
+            if (name.equalsIgnoreCase("gzip") || name.equalsIgnoreCase("x-gzip")) {
+                gzipQuality = quality(parameters);
+            } else if (name.equals("*")) {
+                anyQuality = quality(parameters);
+            }
+        }
+        return gzipQuality != null ? gzipQuality > 0 : anyQuality != null && anyQuality > 0;
+    }
+
+    private static double quality(String[] parameters) {
+        for (int i = 1; i < parameters.length; i++) {
+            var parameter = parameters[i].strip();
+            if (parameter.regionMatches(true, 0, "q=", 0, 2)) {
+                try {
+                    return Double.parseDouble(parameter.substring(2).strip());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
     private URI buildResourceFefURI(User user) {
         return UriComponentsBuilder
                 .fromUriString(CREATED_USER)
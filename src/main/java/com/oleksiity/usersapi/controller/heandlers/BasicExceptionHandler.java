@@ -1,54 +1,91 @@
 package com.oleksiity.usersapi.controller.heandlers;
 
+import com.oleksiity.usersapi.config.MessagesConfig;
+import com.oleksiity.usersapi.exception.EmailMismatchException;
+import com.oleksiity.usersapi.exception.InvalidCursorException;
 import com.oleksiity.usersapi.exception.InvalidDateRangeException;
-import lombok.RequiredArgsConstructor;
+import com.oleksiity.usersapi.exception.InvalidFilterException;
+import com.oleksiity.usersapi.exception.InvalidImportException;
+import com.oleksiity.usersapi.exception.InvalidSearchQueryException;
+import com.oleksiity.usersapi.exception.PreconditionFailedException;
+import com.oleksiity.usersapi.exception.RequestLimitExceededException;
+import com.oleksiity.usersapi.exception.UserConflictException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.MessageSource;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
 import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.ObjectError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
 
+import java.time.Duration;
 import java.util.Collections;
 import java.util.Locale;
 import java.util.NoSuchElementException;
-import java.util.Objects;
 
 @ControllerAdvice
-@RequiredArgsConstructor
 @Slf4j
-public class BasicExceptionHandler {
+public class BasicExceptionHandler extends ResponseEntityExceptionHandler {
 
-    private final MessageSource messageSource;
+    private final ProblemMessages problemMessages;
 
-    @ResponseStatus(HttpStatus.BAD_REQUEST)
-    @ExceptionHandler(MethodArgumentNotValidException.class)
-    public ProblemDetail handleValidationExceptions(
-            MethodArgumentNotValidException ex, Locale locale) {
-        log.error("MethodArgumentNotValidException exception has been handled. Exception details", ex);
-        var problemDetail = ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST,
-                Objects.requireNonNull(messageSource.getMessage("errors.400.title", new Object[0],
-                        "errors.400.title", locale)));
+    private final SampledErrorLog sampledErrorLog;
+
+    public BasicExceptionHandler(MessageSource messageSource, ObjectProvider<MeterRegistry> meterRegistry,
+                                 @Value("${users-api.errors.log-interval:1s}") Duration logInterval) {
+        this.problemMessages = new ProblemMessages(messageSource, "messages.properties",
+                MessagesConfig.SUPPORTED_LOCALES, MessagesConfig.DEFAULT_LOCALE);
+        this.sampledErrorLog = new SampledErrorLog(logInterval, meterRegistry.getIfAvailable(SimpleMeterRegistry::new));
+    }
+
+    // Framework exceptions of a bad request keep their 4xx status, only unexpected ones reach the catch-all below
+    @Override
+    protected ResponseEntity<Object> handleMethodArgumentNotValid(MethodArgumentNotValidException ex,
+                                                                  HttpHeaders headers, HttpStatusCode status,
+                                                                  WebRequest request) {
+        var problemDetail = ProblemDetail.forStatusAndDetail(status,
+                problemMessages.get("errors.400.title", LocaleContextHolder.getLocale()));
         problemDetail.setProperty("errors", ex.getBindingResult().getAllErrors().stream()
                 .map(ObjectError::getDefaultMessage)
                 .toList());
-        return problemDetail;
+        return handleExceptionInternal(ex, problemDetail, headers, status, request);
+    }
+
+    @Override
+    protected ResponseEntity<Object> handleExceptionInternal(Exception ex, Object body, HttpHeaders headers,
+                                                             HttpStatusCode statusCode, WebRequest request) {
+        if (statusCode.is5xxServerError()) {
+            log.error("Unexpected exception has been handled. Exception details", ex);
+        } else {
+            logClientError(ex);
+        }
+        return super.handleExceptionInternal(ex, body, headers, statusCode, request);
     }
 
     @ResponseStatus(HttpStatus.NOT_FOUND)
     @ExceptionHandler(NoSuchElementException.class)
     public ProblemDetail handleNoSuchElementException(
             NoSuchElementException ex, Locale locale) {
-        log.error("NoSuchElementException exception has been handled. Exception details", ex);
+        logClientError(ex);
         var problemDetail = ProblemDetail.forStatusAndDetail(HttpStatus.NOT_FOUND,
-                Objects.requireNonNull(messageSource.getMessage("errors.404.title", new Object[0],
-                        "errors.404.title", locale)));
+                problemMessages.get("errors.404.title", locale));
 
         problemDetail.setProperty("errors", Collections.singletonList(
-                messageSource.getMessage(ex.getMessage(), new Object[0], ex.getMessage(), locale)));
+                problemMessages.get(ex.getMessage(), locale)));
         return problemDetail;
     }
 
@@ -56,24 +93,105 @@ public class BasicExceptionHandler {
     @ExceptionHandler(InvalidDateRangeException.class)
     public ProblemDetail handleDateRangeExceptions(
             InvalidDateRangeException ex, Locale locale) {
-        log.error("InvalidDateRangeException exception has been handled. Exception details", ex);
+        logClientError(ex);
         var problemDetail = ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST,
-                Objects.requireNonNull(messageSource.getMessage("errors.400.title", new Object[0],
-                        "errors.400.title", locale)));
+                problemMessages.get("errors.400.title", locale));
         problemDetail.setProperty("errors", Collections.singletonList(
-                messageSource.getMessage(ex.getMessage(), new Object[0], ex.getMessage(), locale)));
+                problemMessages.get(ex.getMessage(), locale)));
+        return problemDetail;
+    }
+
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    @ExceptionHandler({InvalidCursorException.class, InvalidSearchQueryException.class,
+            InvalidFilterException.class, EmailMismatchException.class})
+    public ProblemDetail handleQueryParameterExceptions(
+            RuntimeException ex, Locale locale) {
+        logClientError(ex);
+        var problemDetail = ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST,
+                problemMessages.get("errors.400.title", locale));
+        problemDetail.setProperty("errors", Collections.singletonList(
+                problemMessages.get(ex.getMessage(), locale)));
+        return problemDetail;
+    }
+
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    @ExceptionHandler(RequestLimitExceededException.class)
+    public ProblemDetail handleRequestLimitExceptions(
+            RequestLimitExceededException ex, Locale locale) {
+        logClientError(ex);
+        var problemDetail = ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST,
+                problemMessages.get("errors.400.title", locale));
+        problemDetail.setProperty("errors", Collections.singletonList(
+                problemMessages.get(ex.getMessage(), locale)));
+        return problemDetail;
+    }
+
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    @ExceptionHandler(InvalidImportException.class)
+    public ProblemDetail handleImportExceptions(
+            InvalidImportException ex, Locale locale) {
+        logClientError(ex);
+        var problemDetail = ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST,
+                problemMessages.get("errors.400.title", locale));
+        problemDetail.setProperty("errors", Collections.singletonList(
+                problemMessages.get(ex.getMessage(), locale)));
+        return problemDetail;
+    }
+
+    @ResponseStatus(HttpStatus.CONFLICT)
+    @ExceptionHandler(UserConflictException.class)
+    public ProblemDetail handleConflictExceptions(
+            UserConflictException ex, Locale locale) {
+        logClientError(ex);
+        var problemDetail = ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT,
+                problemMessages.get("errors.409.title", locale));
+        problemDetail.setProperty("errors", Collections.singletonList(
+                problemMessages.get(ex.getMessage(), locale)));
+        return problemDetail;
+    }
+
+    // Unique violations found only on flush at commit, as by a replacement, escape the service's own conflict mapping
+    @ResponseStatus(HttpStatus.CONFLICT)
+    @ExceptionHandler(DuplicateKeyException.class)
+    public ProblemDetail handleDuplicateKeyExceptions(
+            DuplicateKeyException ex, Locale locale) {
+        logClientError(ex);
+        var problemDetail = ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT,
+                problemMessages.get("errors.409.title", locale));
+        problemDetail.setProperty("errors", Collections.singletonList(
+                problemMessages.get("users-api.users.errors.user_conflict", locale)));
+        return problemDetail;
+    }
+
+    @ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+    @ExceptionHandler({PreconditionFailedException.class, OptimisticLockingFailureException.class})
+    public ProblemDetail handlePreconditionExceptions(
+            RuntimeException ex, Locale locale) {
+        logClientError(ex);
+        var problemDetail = ProblemDetail.forStatusAndDetail(HttpStatus.PRECONDITION_FAILED,
+                problemMessages.get("errors.412.title", locale));
+        problemDetail.setProperty("errors", Collections.singletonList(
+                problemMessages.get("users-api.users.errors.version_mismatch", locale)));
         return problemDetail;
     }
 
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     @ExceptionHandler(Exception.class)
     public ProblemDetail handleServerExceptions(
-            InvalidDateRangeException ex, Locale locale) {
+            Exception ex, Locale locale) {
         log.error("Unexpected exception has been handled. Exception details", ex);
         var problemDetail = ProblemDetail.forStatusAndDetail(HttpStatus.INTERNAL_SERVER_ERROR,
-                Objects.requireNonNull(messageSource.getMessage("errors.500.title", new Object[0],
-                        "errors.500.title", locale)));
+                problemMessages.get("errors.500.title", locale));
         problemDetail.setProperty("errors", Collections.singletonList(ex.getMessage()));
         return problemDetail;
     }
+
+    // Client errors come in storms from misbehaving clients, so they are sampled and logged without a stack trace
+    private void logClientError(Exception ex) {
+        var suppressed = sampledErrorLog.sample(ex.getClass().getSimpleName());
+        if (suppressed >= 0) {
+            log.warn("{} exception has been handled: {}. Similar entries suppressed since the last one: {}",
+                    ex.getClass().getSimpleName(), ex.getMessage(), suppressed);
+        }
+    }
 }
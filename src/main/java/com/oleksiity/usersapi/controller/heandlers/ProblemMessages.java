@@ -0,0 +1,60 @@
+package com.oleksiity.usersapi.controller.heandlers;
+
+import org.springframework.context.MessageSource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Every message of the bundle resolved once per supported locale, so handling an error needs no bundle lookup.
+ * A key without a message resolves to itself, as with the key passed as the default message.
+ */
+final class ProblemMessages {
+
+    private final Map<Locale, Map<String, String>> messages;
+
+    private final Map<String, String> defaultMessages;
+
+    ProblemMessages(MessageSource messageSource, String bundle, List<Locale> locales, Locale defaultLocale) {
+        var keys = loadKeys(bundle);
+        this.messages = locales.stream()
+                .collect(Collectors.toUnmodifiableMap(locale -> locale, locale -> resolve(messageSource, keys, locale)));
+        this.defaultMessages = messages.containsKey(defaultLocale)
+                ? messages.get(defaultLocale)
+                : resolve(messageSource, keys, defaultLocale);
+    }
+
+    String get(String key, Locale locale) {
+        if (key == null) {
+            return null;
+        }
+        var localized = messages.getOrDefault(locale, defaultMessages);
+        return localized.getOrDefault(key, key);
+    }
+
+    private static Map<String, String> resolve(MessageSource messageSource, Iterable<String> keys, Locale locale) {
+        var resolved = new HashMap<String, String>();
+        for (var key : keys) {
+            var message = messageSource.getMessage(key, null, null, locale);
+            if (message != null) {
+                resolved.put(key, message);
+            }
+        }
+        return Map.copyOf(resolved);
+    }
+
+    private static Iterable<String> loadKeys(String bundle) {
+        try {
+            return PropertiesLoaderUtils.loadProperties(new ClassPathResource(bundle)).stringPropertyNames();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Messages bundle " + bundle + " can not be read", e);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.oleksiity.usersapi.controller.heandlers;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lets through at most one log entry per exception type and interval. Suppressed entries are counted
+ * in {@code users-api.errors.log.suppressed} and reported with the next entry that is logged.
+ */
+final class SampledErrorLog {
+
+    private final long intervalNanos;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, Sample> samples = new ConcurrentHashMap<>();
+
+    SampledErrorLog(Duration interval, MeterRegistry meterRegistry) {
+        this.intervalNanos = interval.toNanos();
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * @return number of entries suppressed since the previous logged one, or -1 when this entry must be suppressed
+     */
+    long sample(String exception) {
+        var sample = samples.computeIfAbsent(exception, this::newSample);
+        var now = System.nanoTime();
+        var nextLogAt = sample.nextLogAt.get();
+        if (now - nextLogAt >= 0 && sample.nextLogAt.compareAndSet(nextLogAt, now + intervalNanos)) {
+            return sample.suppressedSinceLogged.sumThenReset();
+        }
+        sample.suppressedSinceLogged.increment();
+        sample.suppressed.increment();
+        return -1;
+    }
+
+    private Sample newSample(String exception) {
+        return new Sample(new AtomicLong(System.nanoTime()), new LongAdder(),
+                Counter.builder("users-api.errors.log.suppressed")
+                        .description("Handled exceptions not logged because of the log sampling")
+                        .tag("exception", exception)
+                        .register(meterRegistry));
+    }
+
+    private record Sample(AtomicLong nextLogAt, LongAdder suppressedSinceLogged, Counter suppressed) {
+    }
+}
@@ -0,0 +1,83 @@
+package com.oleksiity.usersapi.controller.payload;
+
+import com.oleksiity.usersapi.entity.User;
+import com.oleksiity.usersapi.exception.InvalidCursorException;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+public record UserCursor(UserSortField sortField,
+                         Sort.Direction sortDirection,
+                         boolean backward,
+                         Long id,
+                         String key) {
+
+    private static final String SEPARATOR = "|";
+
+    public static UserCursor first(UserSortField sortField, Sort.Direction sortDirection) {
+        return new UserCursor(sortField, sortDirection, false, null, null);
+    }
+
+    public static UserCursor after(User user, UserSortField sortField, Sort.Direction sortDirection) {
+        return new UserCursor(sortField, sortDirection, false, user.getId(), keyOf(user, sortField));
+    }
+
+    public static UserCursor before(User user, UserSortField sortField, Sort.Direction sortDirection) {
+        return new UserCursor(sortField, sortDirection, true, user.getId(), keyOf(user, sortField));
+    }
+
+    public boolean isFirst() {
+        return id == null;
+    }
+
+    public Comparable<?> typedKey() {
+        if (key == null) {
+            return null;
+        }
+        return sortField == UserSortField.BIRTH_DATE ? LocalDate.parse(key) : key;
+    }
+
+    public String encode() {
+        var value = String.join(SEPARATOR, sortField.name(), sortDirection.name(), backward ? "B" : "F", id.toString());
+        if (key != null) {
+            value = value + SEPARATOR + key;
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static UserCursor decode(String cursor) {
+        try {
+            var parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8)
+                    .split("\\|", 5);
+            if (parts.length < 4) {
+                throw new InvalidCursorException();
+            }
+            var sortField = UserSortField.valueOf(parts[0]);
+            var key = parts.length == 5 ? parts[4] : null;
+            if (key == null && sortField != UserSortField.ID && !sortField.isNullable()) {
+                throw new InvalidCursorException();
+            }
+            var userCursor = new UserCursor(sortField, Sort.Direction.valueOf(parts[1]), "B".equals(parts[2]),
+                    Long.valueOf(parts[3]), key);
+            userCursor.typedKey();
+            return userCursor;
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new InvalidCursorException();
+        }
+    }
+
+    private static String keyOf(User user, UserSortField sortField) {
+        return switch (sortField) {
+            case ID -> null;
+            case EMAIL -> user.getEmail();
+            case FIRST_NAME -> user.getFirstName();
+            case LAST_NAME -> user.getLastName();
+            case BIRTH_DATE -> user.getBirthDate().toString();
+            case PHONE -> user.getPhoneNumber();
+            case ADDRESS -> user.getAddress();
+        };
+    }
+}
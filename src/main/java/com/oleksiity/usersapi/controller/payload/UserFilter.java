@@ -0,0 +1,51 @@
+package com.oleksiity.usersapi.controller.payload;
+
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+
+/**
+ * Optional filters of the users list, a user has to match all the present ones. Birth date bounds are inclusive,
+ * ages are full years on the given day, the same way {@link com.oleksiity.usersapi.validation.AgeLimit} counts them.
+ */
+public record UserFilter(@DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+                         @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+                         Integer minAge,
+                         Integer maxAge,
+                         String namePrefix,
+                         Boolean hasPhone,
+                         String emailDomain) {
+
+    public static final UserFilter NONE = new UserFilter(null, null, null, null, null, null, null);
+
+    public boolean isEmpty() {
+        return !hasBirthDateBounds() && namePrefix == null && hasPhone == null && emailDomain == null;
+    }
+
+    public boolean hasBirthDateBounds() {
+        return startDate != null || endDate != null || minAge != null || maxAge != null;
+    }
+
+    /**
+     * @return the earliest birth date allowed by both the start date and the maximum age, null when unbounded
+     */
+    public LocalDate birthDateFrom(LocalDate today) {
+        // Older than maxAge means the (maxAge + 1)th birthday has been reached by today
+        var oldest = maxAge == null ? null : today.minusYears(maxAge + 1L).plusDays(1);
+        if (startDate == null || oldest == null) {
+            return startDate == null ? oldest : startDate;
+        }
+        return startDate.isAfter(oldest) ? startDate : oldest;
+    }
+
+    /**
+     * @return the latest birth date allowed by both the end date and the minimum age, null when unbounded
+     */
+    public LocalDate birthDateTo(LocalDate today) {
+        var youngest = minAge == null ? null : today.minusYears(minAge);
+        if (endDate == null || youngest == null) {
+            return endDate == null ? youngest : endDate;
+        }
+        return endDate.isBefore(youngest) ? endDate : youngest;
+    }
+}
@@ -7,13 +7,15 @@ import lombok.Getter;
 @AllArgsConstructor
 public enum UserSortField {
 
-    ID("id"),
-    EMAIL("email"),
-    FIRST_NAME("firstName"),
-    LAST_NAME("lastName"),
-    BIRTH_DATE("birthDate"),
-    PHONE("phoneNumber"),
-    ADDRESS("address");
+    ID("id", false),
+    EMAIL("email", false),
+    FIRST_NAME("firstName", false),
+    LAST_NAME("lastName", false),
+    BIRTH_DATE("birthDate", false),
+    PHONE("phoneNumber", true),
+    ADDRESS("address", true);
 
     private final String databaseFieldName;
+
+    private final boolean nullable;
 }
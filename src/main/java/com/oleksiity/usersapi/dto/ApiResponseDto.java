@@ -22,6 +22,9 @@ public class ApiResponseDto<T> {
 
     private Collection<T> data;
 
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private Collection<Long> missingIds;
+
     @JsonInclude(JsonInclude.Include.NON_NULL)
     private Map<String, URI> links;
 }
@@ -0,0 +1,6 @@
+package com.oleksiity.usersapi.dto;
+
+import java.util.List;
+
+public record CursorPage<T>(List<T> content, boolean hasNext, boolean hasPrevious) {
+}
@@ -0,0 +1,8 @@
+package com.oleksiity.usersapi.dto;
+
+/**
+ * Response of a request sent with an idempotency key, as replayed to the retries of the request.
+ * The hash of the request body tells a retry from another request reusing the key.
+ */
+public record IdempotentResponse(String requestHash, int status, String location, String contentType, byte[] body) {
+}
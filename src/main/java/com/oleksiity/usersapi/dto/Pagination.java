@@ -1,5 +1,6 @@
 package com.oleksiity.usersapi.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -9,13 +10,14 @@ import lombok.NoArgsConstructor;
 @Builder
 @AllArgsConstructor
 @Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class Pagination {
 
-    private int page;
+    private Integer page;
 
     private int pageSize;
 
-    private long totalPages;
+    private Long totalPages;
 
-    private long totalElements;
+    private Long totalElements;
 }
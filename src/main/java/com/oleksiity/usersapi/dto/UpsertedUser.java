@@ -0,0 +1,9 @@
+package com.oleksiity.usersapi.dto;
+
+import com.oleksiity.usersapi.entity.User;
+
+/**
+ * User as stored by an upsert, and whether the upsert has inserted it or updated an existing row.
+ */
+public record UpsertedUser(User user, boolean created) {
+}
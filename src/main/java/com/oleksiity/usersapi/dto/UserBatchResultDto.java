@@ -0,0 +1,33 @@
+package com.oleksiity.usersapi.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class UserBatchResultDto {
+
+    private int index;
+
+    private Status status;
+
+    private Long id;
+
+    private String email;
+
+    private List<String> errors;
+
+    public enum Status {
+        CREATED,
+        UPDATED,
+        INVALID,
+        CONFLICT,
+        FAILED
+    }
+}
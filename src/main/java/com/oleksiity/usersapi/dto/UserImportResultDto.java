@@ -0,0 +1,21 @@
+package com.oleksiity.usersapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@Builder
+public class UserImportResultDto {
+
+    private long received;
+
+    private long imported;
+
+    private long rejected;
+
+    private List<UserBatchResultDto> rejections;
+}
@@ -0,0 +1,11 @@
+package com.oleksiity.usersapi.dto;
+
+import com.oleksiity.usersapi.entity.User;
+
+import java.util.List;
+
+/**
+ * Users found by a list of ids, in the order the ids were requested, and the ids no user has.
+ */
+public record UserLookup(List<User> users, List<Long> missingIds) {
+}
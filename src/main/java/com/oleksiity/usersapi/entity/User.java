@@ -45,5 +45,7 @@ public class User {
     @Pattern(regexp = "^[0-9]*$")
     private String phoneNumber;
 
+    @Version
+    private Long version;
 
 }
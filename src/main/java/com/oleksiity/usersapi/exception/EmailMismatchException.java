@@ -0,0 +1,13 @@
+package com.oleksiity.usersapi.exception;
+
+public class EmailMismatchException extends RuntimeException {
+
+
+    public EmailMismatchException(String message) {
+        super(message, null, false, false);
+    }
+
+    public EmailMismatchException() {
+        super("users-api.users.errors.email_mismatch", null, false, false);
+    }
+}
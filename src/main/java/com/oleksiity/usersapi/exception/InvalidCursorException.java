@@ -0,0 +1,13 @@
+package com.oleksiity.usersapi.exception;
+
+public class InvalidCursorException extends RuntimeException {
+
+
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+
+    public InvalidCursorException() {
+        super("users-api.users.errors.cursor_not_valid");
+    }
+}
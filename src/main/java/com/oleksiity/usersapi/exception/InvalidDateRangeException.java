@@ -4,10 +4,10 @@ public class InvalidDateRangeException extends RuntimeException {
 
 
     public InvalidDateRangeException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 
     public InvalidDateRangeException() {
-        super("users-api.users.errors.date_range_not_valid");
+        super("users-api.users.errors.date_range_not_valid", null, false, false);
     }
 }
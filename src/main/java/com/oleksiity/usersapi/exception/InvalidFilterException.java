@@ -0,0 +1,13 @@
+package com.oleksiity.usersapi.exception;
+
+public class InvalidFilterException extends RuntimeException {
+
+
+    public InvalidFilterException(String message) {
+        super(message, null, false, false);
+    }
+
+    public InvalidFilterException() {
+        super("users-api.users.errors.filter_not_valid", null, false, false);
+    }
+}
@@ -0,0 +1,13 @@
+package com.oleksiity.usersapi.exception;
+
+public class InvalidImportException extends RuntimeException {
+
+
+    public InvalidImportException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public InvalidImportException(Throwable cause) {
+        super("users-api.users.errors.import_not_valid", cause);
+    }
+}
@@ -0,0 +1,13 @@
+package com.oleksiity.usersapi.exception;
+
+public class InvalidSearchQueryException extends RuntimeException {
+
+
+    public InvalidSearchQueryException(String message) {
+        super(message, null, false, false);
+    }
+
+    public InvalidSearchQueryException() {
+        super("users-api.users.errors.search_query_not_valid", null, false, false);
+    }
+}
@@ -0,0 +1,13 @@
+package com.oleksiity.usersapi.exception;
+
+public class PreconditionFailedException extends RuntimeException {
+
+
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+
+    public PreconditionFailedException() {
+        super("users-api.users.errors.version_mismatch");
+    }
+}
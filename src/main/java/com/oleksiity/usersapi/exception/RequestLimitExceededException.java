@@ -0,0 +1,9 @@
+package com.oleksiity.usersapi.exception;
+
+public class RequestLimitExceededException extends RuntimeException {
+
+
+    public RequestLimitExceededException(String message) {
+        super(message);
+    }
+}
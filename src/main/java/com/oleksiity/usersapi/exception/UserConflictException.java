@@ -0,0 +1,13 @@
+package com.oleksiity.usersapi.exception;
+
+public class UserConflictException extends RuntimeException {
+
+
+    public UserConflictException(String message) {
+        super(message, null, false, false);
+    }
+
+    public UserConflictException() {
+        super("users-api.users.errors.user_conflict", null, false, false);
+    }
+}
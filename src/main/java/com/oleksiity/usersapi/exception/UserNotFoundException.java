@@ -0,0 +1,21 @@
+package com.oleksiity.usersapi.exception;
+
+import java.util.NoSuchElementException;
+
+// Thrown for every miss of a client-supplied key, so the stack trace is never filled in
+public class UserNotFoundException extends NoSuchElementException {
+
+
+    public UserNotFoundException(String message) {
+        super(message);
+    }
+
+    public UserNotFoundException() {
+        super("users-api.users.errors.user_not_found");
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
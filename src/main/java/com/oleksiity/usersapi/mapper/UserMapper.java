@@ -3,23 +3,26 @@ package com.oleksiity.usersapi.mapper;
 import com.oleksiity.usersapi.controller.payload.CreateUpdateUserPayload;
 import com.oleksiity.usersapi.dto.UserDto;
 import com.oleksiity.usersapi.entity.User;
+import com.oleksiity.usersapi.validation.EmailUtils;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.ReportingPolicy;
 
 import java.util.List;
 
-@Mapper(componentModel = "spring", unmappedTargetPolicy = ReportingPolicy.IGNORE)
+@Mapper(componentModel = "spring", unmappedTargetPolicy = ReportingPolicy.IGNORE, imports = EmailUtils.class)
 public interface UserMapper {
 
     UserDto toDto(User user);
 
+    @Mapping(target = "email", expression = "java(EmailUtils.normalize(userDto.getEmail()))")
     User fromDto(UserDto userDto);
 
     List<UserDto> toDto(List<User> employees);
 
     List<User> fromDto(List<UserDto> employees);
 
+    @Mapping(target = "email", expression = "java(EmailUtils.normalize(source.email()))")
     User fromPayload(CreateUpdateUserPayload source);
 
 
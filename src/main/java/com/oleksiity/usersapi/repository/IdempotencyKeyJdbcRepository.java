@@ -0,0 +1,62 @@
+package com.oleksiity.usersapi.repository;
+
+import com.oleksiity.usersapi.dto.IdempotentResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.util.Optional;
+
+@Repository
+@RequiredArgsConstructor
+public class IdempotencyKeyJdbcRepository {
+
+    private static final String SELECT_BY_KEY = """
+            select request_hash, status, location, content_type, body
+            from user_management.idempotency_key
+            where key = ? and created_at > now() - make_interval(secs => ?)
+            """;
+
+    // The first response stored for a key wins, a concurrent request from another instance does not overwrite it
+    private static final String INSERT_IGNORING_CONFLICT = """
+            insert into user_management.idempotency_key (key, request_hash, status, location, content_type, body)
+            values (?, ?, ?, ?, ?, ?)
+            on conflict do nothing
+            """;
+
+    private static final String DELETE_EXPIRED = """
+            delete from user_management.idempotency_key
+            where created_at < now() - make_interval(secs => ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * @return the response stored for the key within the time to live, or empty when there is none
+     */
+    public Optional<IdempotentResponse> find(String key, Duration ttl) {
+        return jdbcTemplate.query(SELECT_BY_KEY, (resultSet, rowNum) -> new IdempotentResponse(
+                        resultSet.getString("request_hash"),
+                        resultSet.getInt("status"),
+                        resultSet.getString("location"),
+                        resultSet.getString("content_type"),
+                        resultSet.getBytes("body")),
+                key, ttl.toSeconds())
+                .stream()
+                .findFirst();
+    }
+
+    public void insertIgnoringConflict(String key, IdempotentResponse response) {
+        jdbcTemplate.update(INSERT_IGNORING_CONFLICT,
+                key, response.requestHash(), response.status(), response.location(), response.contentType(),
+                response.body());
+    }
+
+    /**
+     * @return number of deleted keys
+     */
+    public int deleteExpired(Duration ttl) {
+        return jdbcTemplate.update(DELETE_EXPIRED, ttl.toSeconds());
+    }
+}
@@ -0,0 +1,31 @@
+package com.oleksiity.usersapi.repository;
+
+import com.oleksiity.usersapi.dto.UserDto;
+import com.oleksiity.usersapi.entity.User;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.stream.Stream;
+
+/**
+ * Filtered reads straight into {@link UserDto}, the Criteria counterpart of {@link UserRepository#SELECT_USER_DTO},
+ * and the filtered stream of users behind the export.
+ */
+public interface UserDtoRepository {
+
+    Page<UserDto> findAllDto(Specification<User> specification, Pageable pageable);
+
+    /**
+     * All users, the unfiltered {@link #findAllDto}, so its count query is timed the same way.
+     */
+    Page<UserDto> findAllDtoBy(Pageable pageable);
+
+    Slice<UserDto> findSliceDto(Specification<User> specification, Pageable pageable);
+
+    /**
+     * Streams read-only users fetched in chunks of 500 rows, the stream has to be closed within the transaction.
+     */
+    Stream<User> streamAll(Specification<User> specification);
+}
@@ -0,0 +1,102 @@
+package com.oleksiity.usersapi.repository;
+
+import com.oleksiity.usersapi.dto.UserDto;
+import com.oleksiity.usersapi.entity.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+@RequiredArgsConstructor
+class UserDtoRepositoryImpl implements UserDtoRepository {
+
+    private static final int STREAM_FETCH_SIZE = 500;
+
+    private final EntityManager entityManager;
+
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public Page<UserDto> findAllDto(Specification<User> specification, Pageable pageable) {
+        var content = findDto(specification, pageable, pageable.isPaged() ? pageable.getPageSize() : -1);
+        // The repository invocation timer covers the page as a whole, the count is timed on its own
+        return PageableExecutionUtils.getPage(content, pageable, () -> meterRegistry
+                .timer(UserJdbcRepository.STATEMENT_TIMER, "statement", "count")
+                .record(() -> count(specification)));
+    }
+
+    @Override
+    public Page<UserDto> findAllDtoBy(Pageable pageable) {
+        return findAllDto(null, pageable);
+    }
+
+    @Override
+    public Slice<UserDto> findSliceDto(Specification<User> specification, Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return new SliceImpl<>(findDto(specification, pageable, -1), pageable, false);
+        }
+        // One row more than the page tells whether there is a next page
+        var rows = findDto(specification, pageable, pageable.getPageSize() + 1);
+        var hasNext = rows.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? rows.subList(0, pageable.getPageSize()) : rows, pageable, hasNext);
+    }
+
+    @Override
+    public Stream<User> streamAll(Specification<User> specification) {
+        var cb = entityManager.getCriteriaBuilder();
+        var query = cb.createQuery(User.class);
+        var root = query.from(User.class);
+        where(query, root, cb, specification);
+        return entityManager.createQuery(query)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, STREAM_FETCH_SIZE)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+
+    private List<UserDto> findDto(Specification<User> specification, Pageable pageable, int limit) {
+        var cb = entityManager.getCriteriaBuilder();
+        var query = cb.createQuery(UserDto.class);
+        var root = query.from(User.class);
+        query.select(cb.construct(UserDto.class, root.get("email"), root.get("firstName"), root.get("lastName"),
+                root.get("birthDate"), root.get("address"), root.get("phoneNumber")));
+        where(query, root, cb, specification);
+        query.orderBy(QueryUtils.toOrders(pageable.getSort(), root, cb));
+
+        var typedQuery = entityManager.createQuery(query);
+        if (limit >= 0) {
+            typedQuery.setFirstResult((int) pageable.getOffset())
+                    .setMaxResults(limit);
+        }
+        return typedQuery.getResultList();
+    }
+
+    private long count(Specification<User> specification) {
+        var cb = entityManager.getCriteriaBuilder();
+        var query = cb.createQuery(Long.class);
+        var root = query.from(User.class);
+        query.select(cb.count(root));
+        where(query, root, cb, specification);
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    private static void where(CriteriaQuery<?> query, Root<User> root, CriteriaBuilder cb,
+                              Specification<User> specification) {
+        var predicate = specification == null ? null : specification.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.oleksiity.usersapi.repository;
+
+import com.oleksiity.usersapi.entity.User;
+import lombok.RequiredArgsConstructor;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.function.Consumer;
+
+/**
+ * Loads users through a per-transaction staging table filled with {@code COPY FROM STDIN}.
+ * All methods must be called within the same transaction, the staging table is dropped on commit.
+ */
+@Repository
+@RequiredArgsConstructor
+public class UserImportRepository {
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private static final int FETCH_SIZE = 1000;
+
+    private static final String CREATE_STAGING_TABLE = """
+            create temporary table user_import
+            (
+                row_index    int  not null,
+                email        text,
+                first_name   text,
+                last_name    text,
+                birth_date   date,
+                address      text,
+                phone_number text
+            ) on commit drop
+            """;
+
+    private static final String COPY_TO_STAGING = """
+            copy user_import (row_index, email, first_name, last_name, birth_date, address, phone_number)
+            from stdin (format csv)
+            """;
+
+    private static final String DELETE_NOT_INSERTABLE = """
+            delete from user_import s
+            using (select row_index,
+                          row_number() over (partition by email order by row_index)        as email_rank,
+                          row_number() over (partition by phone_number order by row_index) as phone_rank
+                   from user_import) r,
+                  (select max(character_maximum_length) filter (where column_name = 'email')      as email,
+                          max(character_maximum_length) filter (where column_name = 'first_name') as first_name,
+                          max(character_maximum_length) filter (where column_name = 'last_name')  as last_name,
+                          max(character_maximum_length) filter (where column_name = 'address')    as address
+                   from information_schema.columns
+                   where table_schema = 'user_management' and table_name = 'user') w
+            where s.row_index = r.row_index
+              and (r.email_rank > 1 or (s.phone_number is not null and r.phone_rank > 1)
+                or length(s.email) > w.email or length(s.first_name) > w.first_name
+                or length(s.last_name) > w.last_name or length(s.address) > w.address)
+            returning s.row_index, s.email, r.email_rank > 1 or (s.phone_number is not null and r.phone_rank > 1) as duplicate
+            """;
+
+    private static final String MERGE_STAGING = """
+            with inserted as (
+                insert into user_management.user (email, first_name, last_name, birth_date, address, phone_number)
+                select email, first_name, last_name, birth_date, address, phone_number from user_import order by row_index
+                on conflict do nothing
+                returning email)
+            select s.row_index, s.email from user_import s
+            where not exists (select 1 from inserted i where i.email = s.email)
+            order by s.row_index
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void createStagingTable() {
+        jdbcTemplate.execute(CREATE_STAGING_TABLE);
+    }
+
+    /**
+     * Streams users into the staging table, rows are never held in memory beyond the copy buffer.
+     *
+     * @return number of copied rows
+     */
+    public long copyToStaging(Iterator<StagedUser> users) {
+        return jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            long copied = 0;
+            try (var writer = new BufferedWriter(new OutputStreamWriter(new PGCopyOutputStream(
+                    connection.unwrap(PGConnection.class), COPY_TO_STAGING, COPY_BUFFER_SIZE), StandardCharsets.UTF_8))) {
+                while (users.hasNext()) {
+                    writeRow(writer, users.next());
+                    copied++;
+                }
+            } catch (IOException e) {
+                throw new DataAccessResourceFailureException("Users can not be copied to the staging table", e);
+            }
+            return copied;
+        });
+    }
+
+    /**
+     * Removes staged rows that would make the whole merge fail: duplicates within the import
+     * and values longer than the columns of the user table. The widths are read from the catalog,
+     * so a migration that changes a column does not have to change this statement as well.
+     */
+    public void deleteNotInsertable(Consumer<Rejection> rejections) {
+        jdbcTemplate.query(connection -> {
+            var statement = connection.prepareStatement(DELETE_NOT_INSERTABLE);
+            statement.setFetchSize(FETCH_SIZE);
+            return statement;
+        }, resultSet -> {
+            rejections.accept(new Rejection(resultSet.getInt("row_index"), resultSet.getString("email"),
+                    resultSet.getBoolean("duplicate")));
+        });
+    }
+
+    /**
+     * Inserts staged rows into the user table, skipping rows that violate a unique constraint.
+     */
+    public void mergeStaging(Consumer<Rejection> conflicts) {
+        jdbcTemplate.query(connection -> {
+            var statement = connection.prepareStatement(MERGE_STAGING);
+            statement.setFetchSize(FETCH_SIZE);
+            return statement;
+        }, resultSet -> {
+            conflicts.accept(new Rejection(resultSet.getInt("row_index"), resultSet.getString("email"), true));
+        });
+    }
+
+    private static void writeRow(Writer writer, StagedUser stagedUser) throws IOException {
+        var user = stagedUser.user();
+        writer.write(Integer.toString(stagedUser.index()));
+        writeValue(writer, user.getEmail());
+        writeValue(writer, user.getFirstName());
+        writeValue(writer, user.getLastName());
+        writeValue(writer, user.getBirthDate() != null ? user.getBirthDate().toString() : null);
+        writeValue(writer, user.getAddress());
+        writeValue(writer, user.getPhoneNumber());
+        writer.write('\n');
+    }
+
+    // Unquoted empty value is NULL in COPY csv format, so every non-null value is quoted
+    private static void writeValue(Writer writer, String value) throws IOException {
+        writer.write(',');
+        if (value != null) {
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+    }
+
+    public record StagedUser(int index, User user) {
+    }
+
+    public record Rejection(int index, String email, boolean conflict) {
+    }
+}
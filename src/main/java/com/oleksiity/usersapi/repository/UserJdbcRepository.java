@@ -0,0 +1,227 @@
+package com.oleksiity.usersapi.repository;
+
+import com.oleksiity.usersapi.dto.UpsertedUser;
+import com.oleksiity.usersapi.dto.UserDto;
+import com.oleksiity.usersapi.entity.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.SqlParameterValue;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+@Repository
+@RequiredArgsConstructor
+public class UserJdbcRepository {
+
+    private static final String INSERT_IGNORING_CONFLICTS = """
+            insert into user_management.user (email, first_name, last_name, birth_date, address, phone_number)
+            select * from unnest(?::varchar[], ?::varchar[], ?::varchar[], ?::date[], ?::varchar[], ?::varchar[])
+            on conflict do nothing
+            returning id, email
+            """;
+
+    // The lower(email) index is the arbiter, so a row stored before emails were normalized is updated too.
+    // xmax of a freshly inserted row version is 0, an updated one carries the updating transaction
+    private static final String UPSERT_BY_EMAIL = """
+            insert into user_management.user as u (email, first_name, last_name, birth_date, address, phone_number)
+            select * from unnest(?::varchar[], ?::varchar[], ?::varchar[], ?::date[], ?::varchar[], ?::varchar[])
+            on conflict ((lower(email))) do update
+            set email = excluded.email, first_name = excluded.first_name, last_name = excluded.last_name,
+                birth_date = excluded.birth_date, address = excluded.address, phone_number = excluded.phone_number,
+                version = u.version + 1
+            returning *, xmax = 0 as inserted
+            """;
+
+    // The GiST index on the searched text serves both the match and the order, nearest matches first, so only
+    // one page of matches is read however many rows contain the query. The distance is the only sort key: an index
+    // ordered by an operator can not supply a tie-breaker, and adding one sorts every match again
+    static final String SEARCH = """
+            select email, first_name, last_name, birth_date, address, phone_number
+            from user_management.user
+            where user_management.user_search_text(first_name, last_name, email, address) ilike ?
+            order by ? <<-> user_management.user_search_text(first_name, last_name, email, address)
+            limit ? offset ?
+            """;
+
+    // A single array parameter keeps one prepared statement for any number of ids
+    private static final String SELECT_BY_IDS = """
+            select id, email, first_name, last_name, birth_date, address, phone_number, version
+            from user_management.user
+            where id = any(?)
+            """;
+
+    // One statement reads all the slots in one snapshot, so the sum never mixes versions of different moments
+    private static final String SELECT_TABLE_VERSION = "select sum(version) from user_management.user_table_version";
+
+    private static final List<String> UPDATABLE_COLUMNS =
+            List.of("email", "first_name", "last_name", "birth_date", "address", "phone_number");
+
+    // One statement per set of updated columns, so the same set always reuses the same prepared statement
+    private static final String[] UPDATE_STATEMENTS = IntStream.range(0, 1 << UPDATABLE_COLUMNS.size())
+            .mapToObj(UserJdbcRepository::updateStatement)
+            .toArray(String[]::new);
+
+    public static final String STATEMENT_TIMER = "users.jdbc.statements";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Inserts all users in a single statement, skipping rows that violate a unique constraint.
+     *
+     * @return ids of the inserted rows by email
+     */
+    public Map<String, Long> insertAllIgnoringConflicts(List<User> users) {
+        Map<String, Long> ids = new HashMap<>();
+        return timed("insertAllIgnoringConflicts", () -> {
+            jdbcTemplate.query(connection -> columnsStatement(connection, INSERT_IGNORING_CONFLICTS, users),
+                    resultSet -> {
+                        ids.put(resultSet.getString("email"), resultSet.getLong("id"));
+                    });
+            return ids;
+        });
+    }
+
+    /**
+     * Inserts the users or, for emails that already exist, replaces all their fields in a single statement.
+     * Emails must be normalized and unique within the list.
+     *
+     * @return the stored users by email
+     */
+    public Map<String, UpsertedUser> upsertAllByEmail(List<User> users) {
+        Map<String, UpsertedUser> upserted = new HashMap<>();
+        return timed("upsertAllByEmail", () -> {
+            jdbcTemplate.query(connection -> columnsStatement(connection, UPSERT_BY_EMAIL, users),
+                    resultSet -> {
+                        var user = mapUser(resultSet, 0);
+                        upserted.put(user.getEmail(), new UpsertedUser(user, resultSet.getBoolean("inserted")));
+                    });
+            return upserted;
+        });
+    }
+
+    /**
+     * Finds the users with the given ids in a single query, in no particular order.
+     */
+    public List<User> findAllByIds(Collection<Long> ids) {
+        return timed("findAllByIds", () -> jdbcTemplate.query(connection -> {
+            var statement = connection.prepareStatement(SELECT_BY_IDS);
+            statement.setArray(1, connection.createArrayOf("bigint", ids.toArray()));
+            return statement;
+        }, UserJdbcRepository::mapUser));
+    }
+
+    /**
+     * @return version of the user table, bumped by every statement that changes users
+     */
+    public long findTableVersion() {
+        return timed("findTableVersion", () -> jdbcTemplate.queryForObject(SELECT_TABLE_VERSION, Long.class));
+    }
+
+    /**
+     * Updates only the columns whose values are not null in a single statement and increments the version.
+     *
+     * @param expectedVersion version the user must have to be updated, null to update any version
+     * @return the user as stored after the update, or empty when there is no user with the id and version
+     */
+    public Optional<User> updateNonNullFields(long id, User changes, Long expectedVersion) {
+        var values = new Object[]{changes.getEmail(), changes.getFirstName(), changes.getLastName(),
+                changes.getBirthDate(), changes.getAddress(), changes.getPhoneNumber()};
+        var columns = 0;
+        var args = new ArrayList<>(values.length + 1);
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) {
+                columns |= 1 << i;
+                args.add(values[i]);
+            }
+        }
+        args.add(id);
+        args.add(new SqlParameterValue(Types.BIGINT, expectedVersion));
+
+        var statement = UPDATE_STATEMENTS[columns];
+        return timed("updateNonNullFields", () -> jdbcTemplate.query(statement, UserJdbcRepository::mapUser,
+                args.toArray()))
+                .stream()
+                .findFirst();
+    }
+
+    private static String updateStatement(int columns) {
+        if (columns == 0) {
+            return "select * from user_management.user where id = ? and version = coalesce(?, version)";
+        }
+        return IntStream.range(0, UPDATABLE_COLUMNS.size())
+                .filter(i -> (columns & 1 << i) != 0)
+                .mapToObj(i -> UPDATABLE_COLUMNS.get(i) + " = ?, ")
+                .collect(Collectors.joining("", "update user_management.user set ",
+                        "version = version + 1 where id = ? and version = coalesce(?, version) returning *"));
+    }
+
+    /**
+     * Finds users whose first name, last name, email or address contains the query, the ones with the words
+     * most similar to the query first.
+     */
+    public List<UserDto> search(String query, int limit, long offset) {
+        var pattern = "%" + UserSpecifications.escapeLike(query) + "%";
+        return timed("search", () -> jdbcTemplate.query(SEARCH, (resultSet, rowNum) -> new UserDto(
+                        resultSet.getString("email"),
+                        resultSet.getString("first_name"),
+                        resultSet.getString("last_name"),
+                        resultSet.getObject("birth_date", LocalDate.class),
+                        resultSet.getString("address"),
+                        resultSet.getString("phone_number")),
+                pattern, query, limit, offset));
+    }
+
+    // These statements bypass the JPA repository, so they are not among its invocation timers
+    private <T> T timed(String statement, Supplier<T> query) {
+        return meterRegistry.timer(STATEMENT_TIMER, "statement", statement).record(query);
+    }
+
+    private static User mapUser(ResultSet resultSet, int rowNum) throws SQLException {
+        return User.builder()
+                .id(resultSet.getLong("id"))
+                .email(resultSet.getString("email"))
+                .firstName(resultSet.getString("first_name"))
+                .lastName(resultSet.getString("last_name"))
+                .birthDate(resultSet.getObject("birth_date", LocalDate.class))
+                .address(resultSet.getString("address"))
+                .phoneNumber(resultSet.getString("phone_number"))
+                .version(resultSet.getLong("version"))
+                .build();
+    }
+
+    // One array per column, so the statement is the same for any number of users
+    private static PreparedStatement columnsStatement(Connection connection, String sql, List<User> users)
+            throws SQLException {
+        var statement = connection.prepareStatement(sql);
+        statement.setArray(1, connection.createArrayOf("varchar", column(users, User::getEmail)));
+        statement.setArray(2, connection.createArrayOf("varchar", column(users, User::getFirstName)));
+        statement.setArray(3, connection.createArrayOf("varchar", column(users, User::getLastName)));
+        statement.setArray(4, connection.createArrayOf("varchar", column(users, user -> user.getBirthDate().toString())));
+        statement.setArray(5, connection.createArrayOf("varchar", column(users, User::getAddress)));
+        statement.setArray(6, connection.createArrayOf("varchar", column(users, User::getPhoneNumber)));
+        return statement;
+    }
+
+    private static Object[] column(List<User> users, Function<User, String> getter) {
+        return users.stream().map(getter).toArray();
+    }
+}
@@ -1,17 +1,47 @@
 package com.oleksiity.usersapi.repository;
 
+import com.oleksiity.usersapi.dto.UserDto;
 import com.oleksiity.usersapi.entity.User;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, JpaSpecificationExecutor<User>, UserDtoRepository {
 
-    User findByEmail(String email);
+    /**
+     * Reads rows straight into {@link UserDto}, so no managed entity or dirty checking snapshot is created.
+     */
+    String SELECT_USER_DTO = "select new com.oleksiity.usersapi.dto.UserDto(u.email, u.firstName, u.lastName, "
+            + "u.birthDate, u.address, u.phoneNumber) from User u";
 
-    Page<User> findAllByBirthDateBetween(LocalDate startDate, LocalDate endDate, Pageable pageable);
+    /**
+     * Looks the user up through the lower(email) index, the email must already be normalized.
+     */
+    @Query("select u from User u where lower(u.email) = :email")
+    Optional<User> findByEmail(@Param("email") String email);
+
+    @Query("select u from User u where lower(u.email) in :emails")
+    List<User> findAllByEmailIn(@Param("emails") Collection<String> emails);
+
+    @Query(SELECT_USER_DTO)
+    Slice<UserDto> findSliceDtoBy(Pageable pageable);
+
+    /**
+     * Deletes the user with a single statement, without loading it first.
+     *
+     * @return number of deleted rows, 0 when the user does not exist
+     */
+    @Modifying
+    @Query("delete from User u where u.id = :id")
+    int deleteUserById(@Param("id") long id);
 }
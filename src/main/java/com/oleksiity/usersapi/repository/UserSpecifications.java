@@ -0,0 +1,116 @@
+package com.oleksiity.usersapi.repository;
+
+import com.oleksiity.usersapi.controller.payload.UserFilter;
+import com.oleksiity.usersapi.controller.payload.UserSortField;
+import com.oleksiity.usersapi.entity.User;
+import com.oleksiity.usersapi.validation.EmailUtils;
+import jakarta.persistence.criteria.Path;
+import org.hibernate.query.criteria.HibernateCriteriaBuilder;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDate;
+
+public final class UserSpecifications {
+
+    private static final char LIKE_ESCAPE = '\\';
+
+    private UserSpecifications() {
+    }
+
+    /**
+     * Compiles the filter into predicates an index can serve. All birth date bounds, the ones derived from
+     * the ages included, become a single range on the birth date index, name prefix and email domain are
+     * matched by the trigram indexes. No column is wrapped in a function, which would rule its index out.
+     *
+     * @param today the day ages are counted on
+     */
+    public static Specification<User> matching(UserFilter filter, LocalDate today) {
+        return Specification.where(birthDateWithin(filter.birthDateFrom(today), filter.birthDateTo(today)))
+                .and(namePrefix(filter.namePrefix()))
+                .and(hasPhone(filter.hasPhone()))
+                .and(emailDomain(filter.emailDomain()));
+    }
+
+    public static Specification<User> birthDateWithin(LocalDate from, LocalDate to) {
+        if (from == null && to == null) {
+            return null;
+        }
+        return (root, query, cb) -> {
+            Path<LocalDate> birthDate = root.get("birthDate");
+            if (from == null) {
+                return cb.lessThanOrEqualTo(birthDate, to);
+            }
+            return to == null ? cb.greaterThanOrEqualTo(birthDate, from) : cb.between(birthDate, from, to);
+        };
+    }
+
+    public static Specification<User> namePrefix(String prefix) {
+        if (prefix == null) {
+            return null;
+        }
+        var pattern = escapeLike(prefix.strip()) + "%";
+        return (root, query, cb) -> {
+            var hcb = (HibernateCriteriaBuilder) cb;
+            return cb.or(hcb.ilike(root.get("firstName"), pattern, LIKE_ESCAPE),
+                    hcb.ilike(root.get("lastName"), pattern, LIKE_ESCAPE));
+        };
+    }
+
+    /**
+     * Users without a phone are read from the partial index on id. Users with a phone are most of the table,
+     * no index would narrow them down, so they are filtered while the sort index is read.
+     */
+    public static Specification<User> hasPhone(Boolean hasPhone) {
+        if (hasPhone == null) {
+            return null;
+        }
+        return (root, query, cb) -> hasPhone
+                ? cb.isNotNull(root.get("phoneNumber"))
+                : cb.isNull(root.get("phoneNumber"));
+    }
+
+    public static Specification<User> emailDomain(String domain) {
+        if (domain == null) {
+            return null;
+        }
+        var normalizedDomain = EmailUtils.normalize(domain);
+        var bareDomain = normalizedDomain.startsWith("@") ? normalizedDomain.substring(1) : normalizedDomain;
+        var pattern = "%@" + escapeLike(bareDomain);
+        return (root, query, cb) -> ((HibernateCriteriaBuilder) cb).ilike(root.get("email"), pattern, LIKE_ESCAPE);
+    }
+
+    /**
+     * Rows strictly after the (key, id) position in the given direction. Nulls are expected to be
+     * ordered last when ascending and first when descending, matching PostgreSQL index order.
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    public static Specification<User> keysetAfter(UserSortField sortField, Comparable key, long id,
+                                                  Sort.Direction direction) {
+        return (root, query, cb) -> {
+            Path<Long> idPath = root.get(UserSortField.ID.getDatabaseFieldName());
+            var tieBreaker = direction.isAscending() ? cb.greaterThan(idPath, id) : cb.lessThan(idPath, id);
+            if (sortField == UserSortField.ID) {
+                return tieBreaker;
+            }
+
+            Path<Comparable> path = root.get(sortField.getDatabaseFieldName());
+            if (key == null) {
+                var nullTail = cb.and(cb.isNull(path), tieBreaker);
+                return direction.isAscending() ? nullTail : cb.or(cb.isNotNull(path), nullTail);
+            }
+
+            var bound = direction.isAscending() ? cb.greaterThanOrEqualTo(path, key) : cb.lessThanOrEqualTo(path, key);
+            var beyond = direction.isAscending() ? cb.greaterThan(path, key) : cb.lessThan(path, key);
+            var keyset = cb.and(bound, cb.or(beyond, tieBreaker));
+            return direction.isAscending() && sortField.isNullable() ? cb.or(keyset, cb.isNull(path)) : keyset;
+        };
+    }
+
+    /**
+     * Escapes the like wildcards, so the value is matched literally with the backslash escape character.
+     */
+    static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
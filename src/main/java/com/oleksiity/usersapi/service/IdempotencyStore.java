@@ -0,0 +1,130 @@
+package com.oleksiity.usersapi.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.oleksiity.usersapi.dto.IdempotentResponse;
+import com.oleksiity.usersapi.repository.IdempotencyKeyJdbcRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Successful responses by idempotency key, in a bounded in-memory cache in front of the idempotency key table.
+ * A request whose key is already being processed waits for that request instead of being run again.
+ */
+@Slf4j
+@Component
+public class IdempotencyStore {
+
+    private final IdempotencyKeyJdbcRepository idempotencyKeyJdbcRepository;
+
+    private final Duration ttl;
+
+    private final Cache<String, IdempotentResponse> responses;
+
+    private final Map<String, Previous> inFlight = new ConcurrentHashMap<>();
+
+    public IdempotencyStore(IdempotencyKeyJdbcRepository idempotencyKeyJdbcRepository,
+                            @Value("${users-api.idempotency.ttl:24h}") Duration ttl,
+                            @Value("${users-api.idempotency.max-cached-keys:10000}") long maxCachedKeys) {
+        this.idempotencyKeyJdbcRepository = idempotencyKeyJdbcRepository;
+        this.ttl = ttl;
+        this.responses = Caffeine.newBuilder()
+                .maximumSize(maxCachedKeys)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    /**
+     * Takes the key over unless a response for it is stored or another request with it is in flight.
+     * The caller that takes the key over has to {@link #complete} or {@link #fail} it.
+     *
+     * @return null when the caller took the key over, otherwise the request that holds the key
+     */
+    public Previous acquire(String key, String requestHash) {
+        var stored = find(key);
+        if (stored != null) {
+            return new Previous(stored.requestHash(), CompletableFuture.completedFuture(stored));
+        }
+
+        var previous = new Previous(requestHash, new CompletableFuture<>());
+        var running = inFlight.putIfAbsent(key, previous);
+        if (running != null) {
+            return running;
+        }
+        // The previous holder may have completed between the lookup and taking the key over
+        stored = responses.getIfPresent(key);
+        if (stored != null) {
+            inFlight.remove(key, previous);
+            previous.response().complete(stored);
+            return new Previous(stored.requestHash(), previous.response());
+        }
+        return null;
+    }
+
+    /**
+     * Stores a successful response for later retries and hands it to the requests waiting for the key.
+     * Any other response releases the key instead, so a retry after a failure runs the request again.
+     */
+    public void complete(String key, IdempotentResponse response) {
+        if (!HttpStatusCode.valueOf(response.status()).is2xxSuccessful()) {
+            release(key, null);
+            return;
+        }
+
+        responses.put(key, response);
+        // The request itself has succeeded, failing its response now would only provoke a retry
+        try {
+            idempotencyKeyJdbcRepository.insertIgnoringConflict(key, response);
+        } catch (DataAccessException e) {
+            log.warn("Response for idempotency key {} is only cached in memory, it can not be stored", key, e);
+        }
+        release(key, response);
+    }
+
+    public void fail(String key) {
+        release(key, null);
+    }
+
+    // Scheduled delays take ISO-8601 durations only, unlike the Duration properties bound by Spring Boot
+    @Scheduled(fixedDelayString = "${users-api.idempotency.cleanup-interval:PT10M}")
+    public void deleteExpired() {
+        var deleted = idempotencyKeyJdbcRepository.deleteExpired(ttl);
+        if (deleted > 0) {
+            log.info("Deleted {} expired idempotency keys", deleted);
+        }
+    }
+
+    private void release(String key, IdempotentResponse response) {
+        var previous = inFlight.remove(key);
+        if (previous != null) {
+            previous.response().complete(response);
+        }
+    }
+
+    private IdempotentResponse find(String key) {
+        var response = responses.getIfPresent(key);
+        if (response == null) {
+            response = idempotencyKeyJdbcRepository.find(key, ttl).orElse(null);
+            if (response != null) {
+                responses.put(key, response);
+            }
+        }
+        return response;
+    }
+
+    /**
+     * Request that holds a key, and its response to replay. The response is null when the request has ended
+     * without a response to replay and the key is free again.
+     */
+    public record Previous(String requestHash, CompletableFuture<IdempotentResponse> response) {
+    }
+}
@@ -0,0 +1,15 @@
+package com.oleksiity.usersapi.service;
+
+import com.oleksiity.usersapi.dto.UserImportResultDto;
+
+import java.io.InputStream;
+
+public interface UserImportService {
+
+    UserImportResultDto importUsers(InputStream body, Format format);
+
+    enum Format {
+        CSV,
+        NDJSON
+    }
+}
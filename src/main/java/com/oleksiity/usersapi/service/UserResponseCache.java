@@ -0,0 +1,51 @@
+package com.oleksiity.usersapi.service;
+
+import com.oleksiity.usersapi.config.CacheConfig;
+import com.oleksiity.usersapi.entity.User;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Encoded single-user response bodies, plain and gzipped, by user id. An entry is served only for the
+ * version it was encoded from, writes in {@link UserService} also evict it.
+ */
+@Component
+public class UserResponseCache {
+
+    private final Cache cache;
+
+    public UserResponseCache(CacheManager cacheManager) {
+        this.cache = Objects.requireNonNull(cacheManager.getCache(CacheConfig.USER_RESPONSES_CACHE));
+    }
+
+    public EncodedUser get(User user, Function<User, byte[]> encoder) {
+        var encodedUser = cache.get(user.getId(), EncodedUser.class);
+        if (encodedUser == null || !Objects.equals(encodedUser.version(), user.getVersion())) {
+            var json = encoder.apply(user);
+            encodedUser = new EncodedUser(user.getVersion(), json, gzip(json));
+            cache.put(user.getId(), encodedUser);
+        }
+        return encodedUser;
+    }
+
+    private static byte[] gzip(byte[] json) {
+        var gzipped = new ByteArrayOutputStream(json.length);
+        try (var gzip = new GZIPOutputStream(gzipped)) {
+            gzip.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return gzipped.toByteArray();
+    }
+
+    public record EncodedUser(Long version, byte[] json, byte[] gzip) {
+    }
+}
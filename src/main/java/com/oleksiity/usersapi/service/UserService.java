@@ -1,26 +1,59 @@
 package com.oleksiity.usersapi.service;
 
 import com.oleksiity.usersapi.controller.payload.CreateUpdateUserPayload;
+import com.oleksiity.usersapi.controller.payload.UserCursor;
+import com.oleksiity.usersapi.controller.payload.UserFilter;
+import com.oleksiity.usersapi.dto.CursorPage;
+import com.oleksiity.usersapi.dto.UpsertedUser;
+import com.oleksiity.usersapi.dto.UserBatchResultDto;
 import com.oleksiity.usersapi.dto.UserDto;
+import com.oleksiity.usersapi.dto.UserLookup;
 import com.oleksiity.usersapi.entity.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Consumer;
 
 public interface UserService {
 
     User registerUser(CreateUpdateUserPayload userPayload);
 
-    Page<User> getAllUsers(Pageable pageable);
+    List<UserBatchResultDto> registerUsers(List<CreateUpdateUserPayload> userPayloads);
+
+    UpsertedUser upsertUserByEmail(String email, CreateUpdateUserPayload userPayload);
+
+    List<UserBatchResultDto> upsertUsersByEmail(List<CreateUpdateUserPayload> userPayloads);
+
+    Page<UserDto> getAllUsers(Pageable pageable);
 
     User findUserById(long id);
 
-    Page<User> getAllUsersByDateRange(Pageable pageable, LocalDate from, LocalDate to);
+    User findUserByEmail(String email);
+
+    List<User> findUsersByEmails(List<String> emails);
+
+    UserLookup findUsersByIds(List<Long> ids);
+
+    Page<UserDto> getAllUsers(Pageable pageable, UserFilter filter);
+
+    Slice<UserDto> getAllUsersSlice(Pageable pageable);
+
+    Slice<UserDto> getAllUsersSlice(Pageable pageable, UserFilter filter);
+
+    Slice<UserDto> searchUsers(String query, Pageable pageable);
+
+    void exportUsers(LocalDate from, LocalDate to, Consumer<User> consumer);
+
+    CursorPage<User> getAllUsers(UserCursor cursor, int pageSize);
+
+    CursorPage<User> getAllUsers(UserCursor cursor, int pageSize, UserFilter filter);
 
-    User updateUser(UserDto userDto, long id);
+    User updateUser(UserDto userDto, long id, Long expectedVersion);
 
-    User replaceUser(CreateUpdateUserPayload userPayload, long id);
+    User replaceUser(CreateUpdateUserPayload userPayload, long id, Long expectedVersion);
 
     void deleteUserById(long id);
 
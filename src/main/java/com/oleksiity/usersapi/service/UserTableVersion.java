@@ -0,0 +1,34 @@
+package com.oleksiity.usersapi.service;
+
+import com.oleksiity.usersapi.repository.UserJdbcRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Version of the user table, used as a validator for list responses. It is kept in the database and bumped
+ * by a trigger in the transaction of every change, so changes made through any instance are counted.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserTableVersion {
+
+    private final UserJdbcRepository userJdbcRepository;
+
+    /**
+     * Read in a read-only transaction like the lists themselves, so both come from the same database. A list
+     * served by a lagging replica gets the replica's version, never the newer one of the primary.
+     */
+    @Transactional(readOnly = true)
+    public Snapshot current() {
+        return new Snapshot(userJdbcRepository.findTableVersion());
+    }
+
+    public record Snapshot(long version) {
+
+        public String eTag(String query) {
+            return "W/\"" + Long.toHexString(version) + "-"
+                    + Integer.toHexString(query == null ? 0 : query.hashCode()) + "\"";
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.oleksiity.usersapi.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.oleksiity.usersapi.controller.payload.CreateUpdateUserPayload;
+import com.oleksiity.usersapi.dto.UserBatchResultDto;
+import com.oleksiity.usersapi.dto.UserImportResultDto;
+import com.oleksiity.usersapi.exception.InvalidImportException;
+import com.oleksiity.usersapi.mapper.UserMapper;
+import com.oleksiity.usersapi.repository.UserImportRepository;
+import com.oleksiity.usersapi.service.UserImportService;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.MessageSource;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class UserImportServiceImpl implements UserImportService {
+
+    private static final CsvMapper CSV_MAPPER = CsvMapper.builder()
+            .addModule(new JavaTimeModule())
+            .enable(CsvParser.Feature.EMPTY_STRING_AS_NULL)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+
+    private final UserImportRepository userImportRepository;
+
+    private final UserMapper userMapper;
+
+    private final Validator validator;
+
+    private final ObjectMapper objectMapper;
+
+    private final MessageSource messageSource;
+
+    @Value("${users-api.import.max-reported-rejections:1000}")
+    private int maxReportedRejections;
+
+    @Override
+    @Transactional
+    public UserImportResultDto importUsers(InputStream body, Format format) {
+        var report = new ImportReport();
+        try (MappingIterator<CreateUpdateUserPayload> payloads = reader(format).readValues(body)) {
+            userImportRepository.createStagingTable();
+            var staged = userImportRepository.copyToStaging(new ValidUsers(payloads, report));
+            userImportRepository.deleteNotInsertable(rejection -> report.reject(rejection.index(),
+                    rejection.conflict() ? UserBatchResultDto.Status.CONFLICT : UserBatchResultDto.Status.INVALID,
+                    rejection.email(), null));
+            userImportRepository.mergeStaging(conflict -> report.reject(conflict.index(),
+                    UserBatchResultDto.Status.CONFLICT, conflict.email(), null));
+
+            var imported = staged - (report.rejected - report.invalid);
+            log.info("{} of {} users have been imported", imported, report.received);
+            report.rejections.sort(Comparator.comparingInt(UserBatchResultDto::getIndex));
+            return UserImportResultDto.builder()
+                    .received(report.received)
+                    .imported(imported)
+                    .rejected(report.rejected)
+                    .rejections(report.rejections)
+                    .build();
+        } catch (JsonProcessingException e) {
+            throw new InvalidImportException(e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private ObjectReader reader(Format format) {
+        return switch (format) {
+            case CSV -> CSV_MAPPER.readerFor(CreateUpdateUserPayload.class)
+                    .with(CsvSchema.emptySchema().withHeader());
+            case NDJSON -> objectMapper.readerFor(CreateUpdateUserPayload.class);
+        };
+    }
+
+    private class ImportReport {
+
+        private final List<UserBatchResultDto> rejections = new ArrayList<>();
+
+        private int received;
+
+        private long invalid;
+
+        private long rejected;
+
+        private void reject(int index, UserBatchResultDto.Status status, String email, List<String> errors) {
+            rejected++;
+            if (rejections.size() < maxReportedRejections) {
+                rejections.add(UserBatchResultDto.builder()
+                        .index(index)
+                        .status(status)
+                        .email(email)
+                        .errors(errors)
+                        .build());
+            }
+        }
+    }
+
+    /**
+     * Reads payloads one by one and passes on only those that satisfy the registration rules.
+     */
+    private class ValidUsers implements Iterator<UserImportRepository.StagedUser> {
+
+        private final MappingIterator<CreateUpdateUserPayload> payloads;
+
+        private final ImportReport report;
+
+        private UserImportRepository.StagedUser next;
+
+        private ValidUsers(MappingIterator<CreateUpdateUserPayload> payloads, ImportReport report) {
+            this.payloads = payloads;
+            this.report = report;
+        }
+
+        @Override
+        public boolean hasNext() {
+            try {
+                while (next == null && payloads.hasNextValue()) {
+                    var index = report.received++;
+                    CreateUpdateUserPayload payload;
+                    // A value of the wrong type spoils only its own row, the iterator skips to the next one
+                    try {
+                        payload = payloads.nextValue();
+                    } catch (JsonMappingException e) {
+                        report.invalid++;
+                        report.reject(index, UserBatchResultDto.Status.INVALID, null, List.of(notParsed(e)));
+                        continue;
+                    }
+                    var errors = validator.validate(payload).stream()
+                            .map(ConstraintViolation::getMessage)
+                            .toList();
+                    if (errors.isEmpty()) {
+                        next = new UserImportRepository.StagedUser(index, userMapper.fromPayload(payload));
+                    } else {
+                        report.invalid++;
+                        report.reject(index, UserBatchResultDto.Status.INVALID, payload.email(), errors);
+                    }
+                }
+                return next != null;
+            } catch (JsonProcessingException e) {
+                throw new InvalidImportException(e);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private String notParsed(JsonMappingException e) {
+            var field = e.getPath().isEmpty() ? null : e.getPath().get(e.getPath().size() - 1).getFieldName();
+            return messageSource.getMessage("users-api.users.errors.import_value_not_valid",
+                    new Object[]{field}, LocaleContextHolder.getLocale());
+        }
+
+        @Override
+        public UserImportRepository.StagedUser next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            var user = next;
+            next = null;
+            return user;
+        }
+    }
+}
@@ -1,86 +1,349 @@
 package com.oleksiity.usersapi.service.impl;
 
+import com.oleksiity.usersapi.config.CacheConfig;
+import com.oleksiity.usersapi.config.ReplicaRoutingDataSource;
 import com.oleksiity.usersapi.controller.payload.CreateUpdateUserPayload;
+import com.oleksiity.usersapi.controller.payload.UserCursor;
+import com.oleksiity.usersapi.controller.payload.UserFilter;
+import com.oleksiity.usersapi.controller.payload.UserSortField;
+import com.oleksiity.usersapi.dto.CursorPage;
+import com.oleksiity.usersapi.dto.UpsertedUser;
+import com.oleksiity.usersapi.dto.UserBatchResultDto;
 import com.oleksiity.usersapi.dto.UserDto;
+import com.oleksiity.usersapi.dto.UserLookup;
 import com.oleksiity.usersapi.entity.User;
+import com.oleksiity.usersapi.exception.EmailMismatchException;
 import com.oleksiity.usersapi.exception.InvalidDateRangeException;
+import com.oleksiity.usersapi.exception.InvalidFilterException;
+import com.oleksiity.usersapi.exception.InvalidSearchQueryException;
+import com.oleksiity.usersapi.exception.PreconditionFailedException;
+import com.oleksiity.usersapi.exception.RequestLimitExceededException;
+import com.oleksiity.usersapi.exception.UserConflictException;
+import com.oleksiity.usersapi.exception.UserNotFoundException;
 import com.oleksiity.usersapi.mapper.UserMapper;
+import com.oleksiity.usersapi.repository.UserJdbcRepository;
 import com.oleksiity.usersapi.repository.UserRepository;
+import com.oleksiity.usersapi.repository.UserSpecifications;
 import com.oleksiity.usersapi.service.UserService;
-import com.oleksiity.usersapi.validation.NullUtils;
+import com.oleksiity.usersapi.validation.EmailUtils;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
-import java.util.NoSuchElementException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class UserServiceImpl implements UserService {
 
+    // Trigram indexes can not narrow down queries shorter than a trigram
+    private static final int MIN_SEARCH_QUERY_LENGTH = 3;
+
+    private static final int MAX_SEARCH_QUERY_LENGTH = 100;
+
+    private static final int MAX_FILTER_AGE = 150;
+
+    // A shorter prefix has too few trigrams for the name indexes to narrow the scan down
+    private static final int MIN_FILTER_NAME_PREFIX_LENGTH = 3;
+
+    private static final int MAX_FILTER_PATTERN_LENGTH = 100;
+
     private final UserRepository userRepository;
 
+    private final UserJdbcRepository userJdbcRepository;
+
     private final UserMapper userMapper;
 
+    private final Validator validator;
+
+    private final EntityManager entityManager;
+
+    @Value("${users-api.batch.chunk-size:500}")
+    private int batchChunkSize;
+
+    @Value("${users-api.batch.max-size:10000}")
+    private int batchMaxSize;
+
+    @Value("${users-api.batch.max-ids:500}")
+    private int batchMaxIds;
+
     @Override
     public User registerUser(CreateUpdateUserPayload userPayload) {
         var user = userMapper.fromPayload(userPayload);
-        userRepository.save(user);
+        try {
+            userRepository.save(user);
+        } catch (DuplicateKeyException e) {
+            log.info("User with email {} conflicts with an existing user", user.getEmail());
+            throw new UserConflictException();
+        }
         log.info("User with email {} has been saved", user.getEmail());
 
         return user;
     }
 
     @Override
-    public Page<User> getAllUsers(Pageable pageable) {
-        return userRepository.findAll(pageable);
+    public List<UserBatchResultDto> registerUsers(List<CreateUpdateUserPayload> userPayloads) {
+        if (userPayloads.size() > batchMaxSize) {
+            throw new RequestLimitExceededException("users-api.users.errors.batch_too_large");
+        }
+
+        var results = new UserBatchResultDto[userPayloads.size()];
+        var pending = validateBatch(userPayloads, results);
+        for (int from = 0; from < pending.size(); from += batchChunkSize) {
+            var chunk = pending.subList(from, Math.min(from + batchChunkSize, pending.size()));
+            insertBatchChunk(userPayloads, chunk, results);
+        }
+        var created = Arrays.stream(results)
+                .filter(result -> result.getStatus() == UserBatchResultDto.Status.CREATED)
+                .count();
+        log.info("{} of {} users have been saved in batch", created, userPayloads.size());
+
+        return Arrays.asList(results);
+    }
+
+    @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.USERS_CACHE, key = "#result.user().id"),
+            @CacheEvict(cacheNames = CacheConfig.USER_RESPONSES_CACHE, key = "#result.user().id")})
+    public UpsertedUser upsertUserByEmail(String email, CreateUpdateUserPayload userPayload) {
+        var normalizedEmail = EmailUtils.normalize(email);
+        if (!normalizedEmail.equals(EmailUtils.normalize(userPayload.email()))) {
+            throw new EmailMismatchException();
+        }
+
+        Map<String, UpsertedUser> upserted;
+        try {
+            upserted = userJdbcRepository.upsertAllByEmail(List.of(userMapper.fromPayload(userPayload)));
+        } catch (DuplicateKeyException e) {
+            log.info("User with email {} can not be upserted, the changes conflict with an existing user", email);
+            throw new UserConflictException();
+        }
+        var upsertedUser = upserted.get(normalizedEmail);
+        log.info("User with email {} has been {}", normalizedEmail, upsertedUser.created() ? "created" : "replaced");
+
+        return upsertedUser;
+    }
+
+    // Updated users may be anywhere in the caches, so the batch drops them instead of evicting one by one
+    @Override
+    @CacheEvict(cacheNames = {CacheConfig.USERS_CACHE, CacheConfig.USER_RESPONSES_CACHE}, allEntries = true)
+    public List<UserBatchResultDto> upsertUsersByEmail(List<CreateUpdateUserPayload> userPayloads) {
+        if (userPayloads.size() > batchMaxSize) {
+            throw new RequestLimitExceededException("users-api.users.errors.batch_too_large");
+        }
+
+        var results = new UserBatchResultDto[userPayloads.size()];
+        var pending = validateBatch(userPayloads, results);
+        for (int from = 0; from < pending.size(); from += batchChunkSize) {
+            var chunk = pending.subList(from, Math.min(from + batchChunkSize, pending.size()));
+            upsertBatchChunk(userPayloads, chunk, results);
+        }
+        var upserted = Arrays.stream(results)
+                .filter(result -> result.getStatus() == UserBatchResultDto.Status.CREATED
+                        || result.getStatus() == UserBatchResultDto.Status.UPDATED)
+                .count();
+        log.info("{} of {} users have been upserted in batch", upserted, userPayloads.size());
+
+        return Arrays.asList(results);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<UserDto> getAllUsers(Pageable pageable) {
+        return userRepository.findAllDtoBy(pageable);
     }
 
+    // The cache is shared by all clients, so it is filled from the primary only: a lagging replica would put back
+    // a user that has just been changed or deleted. A client pinned to the primary by its own recent write skips
+    // the cache, which may still hold an entry loaded before that write
     @Override
+    @Cacheable(cacheNames = CacheConfig.USERS_CACHE, key = "#id",
+            condition = "!T(com.oleksiity.usersapi.config.ReplicaRoutingDataSource).isPinnedToPrimary()")
+    @Transactional(readOnly = true)
     public User findUserById(long id) {
-        var optionalUser = userRepository.findById(id);
+        var optionalUser = ReplicaRoutingDataSource.onPrimary(() -> userRepository.findById(id));
         if (optionalUser.isEmpty()) {
             log.info("User with id {} can not be found", id);
-            throw new NoSuchElementException("users-api.users.errors.user_not_found");
+            throw new UserNotFoundException();
         }
         return optionalUser.get();
     }
 
     @Override
-    public Page<User> getAllUsersByDateRange(Pageable pageable, LocalDate from, LocalDate to) {
-        if (from.isAfter(to)) {
+    public User findUserByEmail(String email) {
+        var optionalUser = userRepository.findByEmail(EmailUtils.normalize(email));
+        if (optionalUser.isEmpty()) {
+            log.info("User with email {} can not be found", email);
+            throw new UserNotFoundException("users-api.users.errors.user_with_email_not_found");
+        }
+        return optionalUser.get();
+    }
+
+    @Override
+    public List<User> findUsersByEmails(List<String> emails) {
+        if (emails.size() > batchMaxSize) {
+            throw new RequestLimitExceededException("users-api.users.errors.batch_too_large");
+        }
+        var normalizedEmails = emails.stream()
+                .filter(Objects::nonNull)
+                .map(EmailUtils::normalize)
+                .collect(Collectors.toSet());
+        return normalizedEmails.isEmpty() ? List.of() : userRepository.findAllByEmailIn(normalizedEmails);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public UserLookup findUsersByIds(List<Long> ids) {
+        if (ids.size() > batchMaxIds) {
+            throw new RequestLimitExceededException("users-api.users.errors.too_many_ids");
+        }
+        var uniqueIds = ids.stream()
+                .filter(Objects::nonNull)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        if (uniqueIds.isEmpty()) {
+            return new UserLookup(List.of(), List.of());
+        }
+
+        var usersById = userJdbcRepository.findAllByIds(uniqueIds).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        var users = new ArrayList<User>(usersById.size());
+        var missingIds = new ArrayList<Long>();
+        for (var id : uniqueIds) {
+            var user = usersById.get(id);
+            if (user != null) {
+                users.add(user);
+            } else {
+                missingIds.add(id);
+            }
+        }
+        return new UserLookup(users, missingIds);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<UserDto> getAllUsers(Pageable pageable, UserFilter filter) {
+        return userRepository.findAllDto(compileFilter(filter), pageable);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<UserDto> getAllUsersSlice(Pageable pageable) {
+        return userRepository.findSliceDtoBy(pageable);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<UserDto> getAllUsersSlice(Pageable pageable, UserFilter filter) {
+        return userRepository.findSliceDto(compileFilter(filter), pageable);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<UserDto> searchUsers(String query, Pageable pageable) {
+        var trimmedQuery = query == null ? "" : query.strip();
+        if (trimmedQuery.length() < MIN_SEARCH_QUERY_LENGTH || trimmedQuery.length() > MAX_SEARCH_QUERY_LENGTH) {
+            throw new InvalidSearchQueryException();
+        }
+        // One row more than the page tells whether there is a next page without counting all matches
+        var users = userJdbcRepository.search(trimmedQuery, pageable.getPageSize() + 1, pageable.getOffset());
+        var hasNext = users.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? users.subList(0, pageable.getPageSize()) : users, pageable, hasNext);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportUsers(LocalDate from, LocalDate to, Consumer<User> consumer) {
+        if (from != null && to != null && from.isAfter(to)) {
             throw new InvalidDateRangeException();
         }
-        return userRepository.findAllByBirthDateBetween(from, to, pageable);
+
+        // Either bound may be left open, as in the list filter
+        try (var users = userRepository.streamAll(UserSpecifications.birthDateWithin(from, to))) {
+            users.forEach(user -> {
+                consumer.accept(user);
+                entityManager.detach(user);
+            });
+        }
     }
 
     @Override
-    @Transactional
-    public User updateUser(UserDto userDto, long id) {
-        var user = findUserById(id);
+    public CursorPage<User> getAllUsers(UserCursor cursor, int pageSize) {
+        return findUsersWindow(cursor, pageSize, null);
+    }
 
-        NullUtils.updateIfChanged(user::setFirstName, userDto.getFirstName(), user::getFirstName);
-        NullUtils.updateIfChanged(user::setLastName, userDto.getLastName(), user::getLastName);
-        NullUtils.updateIfChanged(user::setEmail, userDto.getEmail(), user::getEmail);
-        NullUtils.updateIfChanged(user::setAddress, userDto.getAddress(), user::getAddress);
-        NullUtils.updateIfChanged(user::setBirthDate, userDto.getBirthDate(), user::getBirthDate);
-        NullUtils.updateIfChanged(user::setPhoneNumber, userDto.getPhoneNumber(), user::getPhoneNumber);
-        log.info("User with id {} has been partly updated", user.getId());
+    @Override
+    public CursorPage<User> getAllUsers(UserCursor cursor, int pageSize, UserFilter filter) {
+        return findUsersWindow(cursor, pageSize, compileFilter(filter));
+    }
 
-        return user;
+    @Override
+    @Transactional
+    @Caching(put = @CachePut(cacheNames = CacheConfig.USERS_CACHE, key = "#id"),
+            evict = @CacheEvict(cacheNames = CacheConfig.USER_RESPONSES_CACHE, key = "#id"))
+    public User updateUser(UserDto userDto, long id, Long expectedVersion) {
+        Optional<User> optionalUser;
+        try {
+            optionalUser = userJdbcRepository.updateNonNullFields(id, userMapper.fromDto(userDto), expectedVersion);
+        } catch (DuplicateKeyException e) {
+            log.info("User with id {} can not be updated, the changes conflict with an existing user", id);
+            throw new UserConflictException();
+        }
+        if (optionalUser.isEmpty()) {
+            if (expectedVersion != null && userRepository.existsById(id)) {
+                log.info("User with id {} has been modified since version {}", id, expectedVersion);
+                throw new PreconditionFailedException();
+            }
+            log.info("User with id {} can not be found", id);
+            throw new UserNotFoundException();
+        }
+        log.info("User with id {} has been partly updated", id);
+
+        return optionalUser.get();
     }
 
     @Override
     @Transactional
-    public User replaceUser(CreateUpdateUserPayload userPayload, long id) {
+    @Caching(put = @CachePut(cacheNames = CacheConfig.USERS_CACHE, key = "#id"),
+            evict = @CacheEvict(cacheNames = CacheConfig.USER_RESPONSES_CACHE, key = "#id"))
+    public User replaceUser(CreateUpdateUserPayload userPayload, long id, Long expectedVersion) {
         var user = findUserById(id);
+        // The version is checked again by Hibernate on flush, so a concurrent write in between still fails
+        if (expectedVersion != null && !expectedVersion.equals(user.getVersion())) {
+            log.info("User with id {} has been modified since version {}", id, expectedVersion);
+            throw new PreconditionFailedException();
+        }
         user.setAddress(userPayload.address());
-        user.setEmail(userPayload.email());
+        user.setEmail(EmailUtils.normalize(userPayload.email()));
         user.setBirthDate(userPayload.birthDate());
         user.setPhoneNumber(userPayload.phoneNumber());
         user.setFirstName(userPayload.firstName());
@@ -91,10 +354,173 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
+    @Transactional
+    @CacheEvict(cacheNames = {CacheConfig.USERS_CACHE, CacheConfig.USER_RESPONSES_CACHE}, key = "#id")
     public void deleteUserById(long id) {
-        var user = findUserById(id);
-        userRepository.delete(user);
-        log.info("User with id {} has been deleted", user.getId());
+        if (userRepository.deleteUserById(id) == 0) {
+            log.info("User with id {} can not be found", id);
+            throw new UserNotFoundException();
+        }
+        log.info("User with id {} has been deleted", id);
+    }
+
+    /**
+     * Fills the results of invalid payloads and of payloads repeating an email or phone number of the batch.
+     *
+     * @return indexes of the payloads left to be stored
+     */
+    private List<Integer> validateBatch(List<CreateUpdateUserPayload> userPayloads, UserBatchResultDto[] results) {
+        var emails = new HashSet<String>();
+        var phoneNumbers = new HashSet<String>();
+        var pending = new ArrayList<Integer>();
+        for (int i = 0; i < userPayloads.size(); i++) {
+            var userPayload = userPayloads.get(i);
+            List<String> errors = userPayload == null ? List.of() : validator.validate(userPayload).stream()
+                    .map(ConstraintViolation::getMessage)
+                    .toList();
+            if (userPayload == null || !errors.isEmpty()) {
+                results[i] = batchResult(i, UserBatchResultDto.Status.INVALID, null, userPayload)
+                        .errors(errors)
+                        .build();
+            } else if (!emails.add(EmailUtils.normalize(userPayload.email()))
+                    || (userPayload.phoneNumber() != null && !phoneNumbers.add(userPayload.phoneNumber()))) {
+                results[i] = batchResult(i, UserBatchResultDto.Status.CONFLICT, null, userPayload).build();
+            } else {
+                pending.add(i);
+            }
+        }
+        return pending;
+    }
+
+    private void upsertBatchChunk(List<CreateUpdateUserPayload> userPayloads, List<Integer> chunk,
+                                  UserBatchResultDto[] results) {
+        Map<String, UpsertedUser> upserted;
+        try {
+            upserted = userJdbcRepository.upsertAllByEmail(chunk.stream()
+                    .map(i -> userMapper.fromPayload(userPayloads.get(i)))
+                    .toList());
+        } catch (DataAccessException e) {
+            if (chunk.size() > 1) {
+                log.warn("Batch chunk of {} users has been rejected, retrying users one by one", chunk.size());
+                chunk.forEach(i -> upsertBatchChunk(userPayloads, List.of(i), results));
+                return;
+            }
+            var userPayload = userPayloads.get(chunk.get(0));
+            // A phone number of another user is a conflict, anything else a failure of the user
+            var status = e instanceof DuplicateKeyException
+                    ? UserBatchResultDto.Status.CONFLICT : UserBatchResultDto.Status.FAILED;
+            if (status == UserBatchResultDto.Status.FAILED) {
+                log.warn("User with email {} can not be upserted in batch", userPayload.email(), e);
+            }
+            results[chunk.get(0)] = batchResult(chunk.get(0), status, null, userPayload).build();
+            return;
+        }
+
+        for (var i : chunk) {
+            var userPayload = userPayloads.get(i);
+            var upsertedUser = upserted.get(EmailUtils.normalize(userPayload.email()));
+            var status = upsertedUser.created() ? UserBatchResultDto.Status.CREATED : UserBatchResultDto.Status.UPDATED;
+            results[i] = batchResult(i, status, upsertedUser.user().getId(), userPayload).build();
+        }
+    }
+
+    private void insertBatchChunk(List<CreateUpdateUserPayload> userPayloads, List<Integer> chunk,
+                                  UserBatchResultDto[] results) {
+        Map<String, Long> ids;
+        try {
+            ids = userJdbcRepository.insertAllIgnoringConflicts(chunk.stream()
+                    .map(i -> userMapper.fromPayload(userPayloads.get(i)))
+                    .toList());
+        } catch (DataAccessException e) {
+            if (chunk.size() > 1) {
+                log.warn("Batch chunk of {} users has been rejected, retrying users one by one", chunk.size());
+                chunk.forEach(i -> insertBatchChunk(userPayloads, List.of(i), results));
+                return;
+            }
+            log.warn("User with email {} can not be saved in batch", userPayloads.get(chunk.get(0)).email(), e);
+            ids = null;
+        }
+
+        for (var i : chunk) {
+            var userPayload = userPayloads.get(i);
+            if (ids == null) {
+                results[i] = batchResult(i, UserBatchResultDto.Status.FAILED, null, userPayload).build();
+            } else {
+                var id = ids.get(EmailUtils.normalize(userPayload.email()));
+                var status = id != null ? UserBatchResultDto.Status.CREATED : UserBatchResultDto.Status.CONFLICT;
+                results[i] = batchResult(i, status, id, userPayload).build();
+            }
+        }
+    }
+
+    private static UserBatchResultDto.UserBatchResultDtoBuilder batchResult(int index, UserBatchResultDto.Status status,
+                                                                             Long id, CreateUpdateUserPayload userPayload) {
+        return UserBatchResultDto.builder()
+                .index(index)
+                .status(status)
+                .id(id)
+                .email(userPayload != null ? userPayload.email() : null);
+    }
+
+    private static Specification<User> compileFilter(UserFilter filter) {
+        if (filter.startDate() != null && filter.endDate() != null && filter.startDate().isAfter(filter.endDate())) {
+            throw new InvalidDateRangeException();
+        }
+        if (!isValidAge(filter.minAge()) || !isValidAge(filter.maxAge())
+                || filter.minAge() != null && filter.maxAge() != null && filter.minAge() > filter.maxAge()
+                || !isValidPattern(filter.namePrefix(), MIN_FILTER_NAME_PREFIX_LENGTH)
+                || !isValidPattern(filter.emailDomain(), 1)) {
+            throw new InvalidFilterException();
+        }
+        // Ages become birth date bounds of the current day, the same day AgeLimitValidator checks against
+        return UserSpecifications.matching(filter, LocalDate.now());
+    }
+
+    private static boolean isValidAge(Integer age) {
+        return age == null || age >= 0 && age <= MAX_FILTER_AGE;
+    }
+
+    private static boolean isValidPattern(String pattern, int minLength) {
+        if (pattern == null) {
+            return true;
+        }
+        var length = pattern.strip().length();
+        return length >= minLength && length <= MAX_FILTER_PATTERN_LENGTH;
+    }
+
+    private CursorPage<User> findUsersWindow(UserCursor cursor, int pageSize, Specification<User> filter) {
+        var direction = cursor.backward() ? reverse(cursor.sortDirection()) : cursor.sortDirection();
+        var specification = Specification.where(filter);
+        if (!cursor.isFirst()) {
+            specification = specification.and(UserSpecifications.keysetAfter(
+                    cursor.sortField(), cursor.typedKey(), cursor.id(), direction));
+        }
+
+        var rows = userRepository.findBy(specification, query -> query
+                .sortBy(keysetSort(cursor.sortField(), direction))
+                .limit(pageSize + 1)
+                .all());
+        var hasMore = rows.size() > pageSize;
+        var content = new ArrayList<>(hasMore ? rows.subList(0, pageSize) : rows);
+
+        if (cursor.backward()) {
+            Collections.reverse(content);
+            return new CursorPage<>(content, true, hasMore);
+        }
+        return new CursorPage<>(content, hasMore, !cursor.isFirst());
+    }
+
+    private static Sort keysetSort(UserSortField sortField, Sort.Direction direction) {
+        var idOrder = new Sort.Order(direction, UserSortField.ID.getDatabaseFieldName());
+        if (sortField == UserSortField.ID) {
+            return Sort.by(idOrder);
+        }
+        var nullHandling = direction.isAscending() ? Sort.NullHandling.NULLS_LAST : Sort.NullHandling.NULLS_FIRST;
+        return Sort.by(new Sort.Order(direction, sortField.getDatabaseFieldName(), nullHandling), idOrder);
+    }
+
+    private static Sort.Direction reverse(Sort.Direction direction) {
+        return direction.isAscending() ? Sort.Direction.DESC : Sort.Direction.ASC;
     }
 
 
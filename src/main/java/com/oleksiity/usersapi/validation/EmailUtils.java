@@ -0,0 +1,13 @@
+package com.oleksiity.usersapi.validation;
+
+import java.util.Locale;
+
+public class EmailUtils {
+
+    /**
+     * Key emails are stored and looked up by, matching the lower(email) unique index.
+     */
+    public static String normalize(String email) {
+        return email == null ? null : email.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,22 @@
+-- Drops what a failed run of this migration has left invalid, as in V1_0_1
+do $$
+declare
+    invalid_index text;
+begin
+    for invalid_index in
+        select format('%I.%I', n.nspname, c.relname)
+        from pg_index i
+                 join pg_class c on c.oid = i.indexrelid
+                 join pg_namespace n on n.oid = c.relnamespace
+        where not i.indisvalid
+          and n.nspname = 'user_management'
+          and c.relname in ('user_without_phone_id_idx')
+        loop
+            execute 'drop index ' || invalid_index;
+        end loop;
+end $$;
+
+-- Serves hasPhone=false in the default id order. hasPhone=true keeps most of the table, so it is left to
+-- the id order with a filter, which stops as soon as a page is full
+create index concurrently if not exists user_without_phone_id_idx on user_management.user (id)
+    where phone_number is null;
@@ -0,0 +1,31 @@
+-- Runs outside a transaction, as set in the .sql.conf next to it, since an index can not be built concurrently
+-- in one. The same goes for every migration that builds indexes concurrently.
+-- A failed concurrent build leaves an invalid index behind, which "if not exists" would then keep for good,
+-- so a retried migration drops it first
+do $$
+declare
+    invalid_index text;
+begin
+    for invalid_index in
+        select format('%I.%I', n.nspname, c.relname)
+        from pg_index i
+                 join pg_class c on c.oid = i.indexrelid
+                 join pg_namespace n on n.oid = c.relnamespace
+        where not i.indisvalid
+          and n.nspname = 'user_management'
+          and c.relname in ('user_first_name_id_idx',
+                                'user_last_name_id_idx',
+                                'user_birth_date_id_idx',
+                                'user_address_id_idx',
+                                'user_phone_number_id_idx')
+        loop
+            execute 'drop index ' || invalid_index;
+        end loop;
+end $$;
+
+-- email and id are already covered by the unique email index and the primary key
+create index concurrently if not exists user_first_name_id_idx on user_management.user (first_name, id);
+create index concurrently if not exists user_last_name_id_idx on user_management.user (last_name, id);
+create index concurrently if not exists user_birth_date_id_idx on user_management.user (birth_date, id);
+create index concurrently if not exists user_address_id_idx on user_management.user (address, id);
+create index concurrently if not exists user_phone_number_id_idx on user_management.user (phone_number, id);
@@ -0,0 +1,3 @@
+-- Optimistic locking version, the constant default does not rewrite the table
+alter table user_management.user
+    add column version bigint not null default 0;
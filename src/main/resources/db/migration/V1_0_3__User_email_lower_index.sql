@@ -0,0 +1,20 @@
+-- Drops what a failed run of this migration has left invalid, as in V1_0_1
+do $$
+declare
+    invalid_index text;
+begin
+    for invalid_index in
+        select format('%I.%I', n.nspname, c.relname)
+        from pg_index i
+                 join pg_class c on c.oid = i.indexrelid
+                 join pg_namespace n on n.oid = c.relnamespace
+        where not i.indisvalid
+          and n.nspname = 'user_management'
+          and c.relname in ('user_email_lower_idx')
+        loop
+            execute 'drop index ' || invalid_index;
+        end loop;
+end $$;
+
+-- Case-insensitive uniqueness and single-probe lookups by email, fails if emails differing only in case exist
+create unique index concurrently if not exists user_email_lower_idx on user_management.user (lower(email));
@@ -0,0 +1,2 @@
+-- Kept apart from the indexes, which are created concurrently outside of a transaction
+create extension if not exists pg_trgm;
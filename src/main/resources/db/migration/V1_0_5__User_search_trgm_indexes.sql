@@ -0,0 +1,26 @@
+-- Drops what a failed run of this migration has left invalid, as in V1_0_1
+do $$
+declare
+    invalid_index text;
+begin
+    for invalid_index in
+        select format('%I.%I', n.nspname, c.relname)
+        from pg_index i
+                 join pg_class c on c.oid = i.indexrelid
+                 join pg_namespace n on n.oid = c.relnamespace
+        where not i.indisvalid
+          and n.nspname = 'user_management'
+          and c.relname in ('user_first_name_trgm_idx',
+                                'user_last_name_trgm_idx',
+                                'user_email_trgm_idx',
+                                'user_address_trgm_idx')
+        loop
+            execute 'drop index ' || invalid_index;
+        end loop;
+end $$;
+
+-- Serve the substring search by name, email and address, each column is matched with ilike '%query%'
+create index concurrently if not exists user_first_name_trgm_idx on user_management.user using gin (first_name gin_trgm_ops);
+create index concurrently if not exists user_last_name_trgm_idx on user_management.user using gin (last_name gin_trgm_ops);
+create index concurrently if not exists user_email_trgm_idx on user_management.user using gin (email gin_trgm_ops);
+create index concurrently if not exists user_address_trgm_idx on user_management.user using gin (address gin_trgm_ops);
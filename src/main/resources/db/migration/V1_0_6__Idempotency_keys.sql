@@ -0,0 +1,13 @@
+-- Responses of requests sent with an Idempotency-Key header, replayed when the key is sent again
+create table user_management.idempotency_key
+(
+    key          varchar(255) primary key,
+    request_hash char(64)     not null,
+    status       smallint     not null,
+    location     varchar(2048),
+    content_type varchar(255),
+    body         bytea        not null,
+    created_at   timestamptz  not null default now()
+);
+
+create index idempotency_key_created_at_idx on user_management.idempotency_key (created_at);
@@ -0,0 +1,32 @@
+-- Version of the whole user table, the validator of list responses shared by every instance. It is the sum of
+-- the slot counters and starts at the migration time in milliseconds, so a recreated database does not reissue
+-- the versions of the previous one.
+-- Writers bump one slot each, picked by their backend, so concurrent writers rarely queue on the same row.
+-- The free space left on the page keeps the updates heap-only, their old row versions are pruned in place
+create table user_management.user_table_version
+(
+    slot    int primary key,
+    version bigint not null
+) with (fillfactor = 50);
+
+insert into user_management.user_table_version (slot, version)
+select slot, case when slot = 0 then (extract(epoch from clock_timestamp()) * 1000)::bigint else 0 end
+from generate_series(0, 15) as slot;
+
+-- Bumped by every statement that changes users, in its own transaction: readers see the new version only
+-- together with the change, and writes of every instance, imports and manual fixes are all counted.
+-- Only writers on the same slot queue on each other until they commit
+create function user_management.bump_user_table_version() returns trigger
+    language plpgsql as
+$$
+begin
+    update user_management.user_table_version set version = version + 1 where slot = pg_backend_pid() % 16;
+    return null;
+end;
+$$;
+
+create trigger user_table_version_bump
+    after insert or update or delete or truncate
+    on user_management.user
+    for each statement
+execute function user_management.bump_user_table_version();
@@ -0,0 +1,12 @@
+-- Searched fields in one text, so a single index both filters the matches and returns them nearest first.
+-- The line breaks keep a query from matching across two fields
+create or replace function user_management.user_search_text(first_name varchar, last_name varchar,
+                                                             email varchar, address varchar)
+    returns text
+    language sql
+    immutable
+    parallel safe
+as
+$$
+select first_name || E'\n' || last_name || E'\n' || email || E'\n' || coalesce(address, '')
+$$;
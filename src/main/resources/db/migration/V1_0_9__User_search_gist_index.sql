@@ -0,0 +1,24 @@
+-- Drops what a failed run of this migration has left invalid, as in V1_0_1
+do $$
+declare
+    invalid_index text;
+begin
+    for invalid_index in
+        select format('%I.%I', n.nspname, c.relname)
+        from pg_index i
+                 join pg_class c on c.oid = i.indexrelid
+                 join pg_namespace n on n.oid = c.relnamespace
+        where not i.indisvalid
+          and n.nspname = 'user_management'
+          and c.relname in ('user_search_text_trgm_idx')
+        loop
+            execute 'drop index ' || invalid_index;
+        end loop;
+end $$;
+
+-- GiST rather than GIN: only GiST orders by trigram distance, so the search stops after one page of matches
+create index concurrently if not exists user_search_text_trgm_idx on user_management.user
+    using gist (user_management.user_search_text(first_name, last_name, email, address) gist_trgm_ops);
+
+-- The first name, last name and email indexes still serve the prefix and domain filters of the list
+drop index concurrently if exists user_management.user_address_trgm_idx;
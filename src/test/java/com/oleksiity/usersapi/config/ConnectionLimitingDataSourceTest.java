@@ -0,0 +1,54 @@
+package com.oleksiity.usersapi.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ConnectionLimitingDataSourceTest {
+
+    @Mock
+    private DataSource targetDataSource;
+
+    @Mock
+    private Connection connection;
+
+    @Test
+    @DisplayName("Connection over the limit times out and the permit is returned on close")
+    public void shouldLimitConnectionsAndReleasePermitOnClose() throws SQLException {
+        var dataSource = new ConnectionLimitingDataSource(targetDataSource, 1, Duration.ofMillis(10));
+        when(targetDataSource.getConnection()).thenReturn(connection);
+
+        var first = dataSource.getConnection();
+
+        assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+        first.close();
+        first.close();
+        assertThat(dataSource.availablePermits()).isEqualTo(1);
+        dataSource.getConnection();
+        verify(connection, times(2)).close();
+        verify(targetDataSource, times(2)).getConnection();
+    }
+
+    @Test
+    @DisplayName("Permit is returned when the pool fails to provide a connection")
+    public void shouldReleasePermitWhenTargetFails() throws SQLException {
+        var dataSource = new ConnectionLimitingDataSource(targetDataSource, 1, Duration.ofMillis(10));
+        when(targetDataSource.getConnection()).thenThrow(new SQLException("Pool is closed"));
+
+        assertThrows(SQLException.class, dataSource::getConnection);
+        assertThat(dataSource.availablePermits()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,230 @@
+package com.oleksiity.usersapi.config;
+
+import com.oleksiity.usersapi.dto.IdempotentResponse;
+import com.oleksiity.usersapi.repository.IdempotencyKeyJdbcRepository;
+import com.oleksiity.usersapi.service.IdempotencyStore;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyFilterTest {
+
+    private static final String CREATED_BODY = "{\"data\":[{\"email\":\"awenger@gunners.com\"}]}";
+
+    private static final String EMPTY_BODY_HASH = "e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855";
+
+    @Mock
+    private IdempotencyKeyJdbcRepository idempotencyKeyJdbcRepository;
+
+    private IdempotencyFilter filter;
+
+    @BeforeEach
+    public void setUp() {
+        filter = new IdempotencyFilter(new IdempotencyStore(idempotencyKeyJdbcRepository, Duration.ofHours(24), 100),
+                Duration.ofSeconds(5));
+    }
+
+    @Test
+    @DisplayName("A retried key gets the stored 201 response without running the request again")
+    public void shouldReplayStoredResponse() throws Exception {
+        when(idempotencyKeyJdbcRepository.find(anyString(), any())).thenReturn(Optional.empty());
+        var executions = new AtomicInteger();
+
+        var first = new MockHttpServletResponse();
+        filter.doFilter(post("key-1"), first, (request, response) -> created(executions, (HttpServletResponse) response));
+        var retry = new MockHttpServletResponse();
+        filter.doFilter(post("key-1"), retry, (request, response) -> created(executions, (HttpServletResponse) response));
+
+        assertThat(executions).hasValue(1);
+        assertThat(first.getContentAsString()).isEqualTo(CREATED_BODY);
+        assertThat(retry.getStatus()).isEqualTo(201);
+        assertThat(retry.getHeader(HttpHeaders.LOCATION)).isEqualTo("/api/v1/users/2");
+        assertThat(retry.getContentType()).isEqualTo("application/json");
+        assertThat(retry.getContentAsString()).isEqualTo(CREATED_BODY);
+        verify(idempotencyKeyJdbcRepository, times(1)).insertIgnoringConflict(eq("key-1"), any());
+        verify(idempotencyKeyJdbcRepository, times(1)).find(eq("key-1"), any());
+    }
+
+    @Test
+    @DisplayName("A key stored by another instance is replayed from the table, failed requests are not stored")
+    public void shouldReplayFromTableAndRetryFailures() throws Exception {
+        var stored = new IdempotentResponse(EMPTY_BODY_HASH, 201, "/api/v1/users/2", "application/json",
+                CREATED_BODY.getBytes(StandardCharsets.UTF_8));
+        when(idempotencyKeyJdbcRepository.find(anyString(), any())).thenReturn(Optional.empty());
+        when(idempotencyKeyJdbcRepository.find(eq("key-2"), any())).thenReturn(Optional.of(stored));
+        var executions = new AtomicInteger();
+
+        var replayed = new MockHttpServletResponse();
+        filter.doFilter(post("key-2"), replayed, (request, response) -> executions.incrementAndGet());
+        for (int i = 0; i < 2; i++) {
+            filter.doFilter(post("key-3"), new MockHttpServletResponse(), (request, response) -> {
+                executions.incrementAndGet();
+                ((HttpServletResponse) response).setStatus(400);
+            });
+        }
+
+        assertThat(replayed.getContentAsString()).isEqualTo(CREATED_BODY);
+        assertThat(executions).hasValue(2);
+        verify(idempotencyKeyJdbcRepository, never()).insertIgnoringConflict(anyString(), any());
+    }
+
+    @Test
+    @DisplayName("A concurrent duplicate waits for the request in flight and gets its response")
+    public void shouldCollapseConcurrentDuplicates() throws Exception {
+        when(idempotencyKeyJdbcRepository.find(anyString(), any())).thenReturn(Optional.empty());
+        var executions = new AtomicInteger();
+        var firstStarted = new CountDownLatch(1);
+        var releaseFirst = new CountDownLatch(1);
+
+        var first = new MockHttpServletResponse();
+        var duplicate = new MockHttpServletResponse();
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            var firstDone = executor.submit(() -> {
+                filter.doFilter(post("key-4"), first, (request, response) -> {
+                    firstStarted.countDown();
+                    await(releaseFirst);
+                    created(executions, (HttpServletResponse) response);
+                });
+                return null;
+            });
+            assertThat(firstStarted.await(5, TimeUnit.SECONDS)).isTrue();
+            var duplicateDone = executor.submit(() -> {
+                filter.doFilter(post("key-4"), duplicate,
+                        (request, response) -> created(executions, (HttpServletResponse) response));
+                return null;
+            });
+            releaseFirst.countDown();
+            firstDone.get(5, TimeUnit.SECONDS);
+            duplicateDone.get(5, TimeUnit.SECONDS);
+        }
+
+        assertThat(executions).hasValue(1);
+        assertThat(duplicate.getStatus()).isEqualTo(201);
+        assertThat(duplicate.getContentAsString()).isEqualTo(first.getContentAsString());
+    }
+
+    @Test
+    @DisplayName("A key reused with another body is rejected, the request still gets the same body")
+    public void shouldRejectKeyReusedWithAnotherBody() throws Exception {
+        when(idempotencyKeyJdbcRepository.find(anyString(), any())).thenReturn(Optional.empty());
+        var executions = new AtomicInteger();
+        var firstBody = new StringBuilder();
+
+        filter.doFilter(post("key-5", "{\"email\":\"awenger@gunners.com\"}"), new MockHttpServletResponse(),
+                (request, response) -> {
+                    firstBody.append(new String(request.getInputStream().readAllBytes(), StandardCharsets.UTF_8));
+                    created(executions, (HttpServletResponse) response);
+                });
+        var reused = new MockHttpServletResponse();
+        filter.doFilter(post("key-5", "{\"email\":\"sergio@madrid.com\"}"), reused,
+                (request, response) -> created(executions, (HttpServletResponse) response));
+
+        assertThat(firstBody.toString()).isEqualTo("{\"email\":\"awenger@gunners.com\"}");
+        assertThat(executions).hasValue(1);
+        assertThat(reused.getStatus()).isEqualTo(422);
+    }
+
+    @Test
+    @DisplayName("A duplicate stops waiting for a hung request with 409, and runs itself after a 5xx")
+    public void shouldNotWaitForeverOrReplayServerErrors() throws Exception {
+        filter = new IdempotencyFilter(new IdempotencyStore(idempotencyKeyJdbcRepository, Duration.ofHours(24), 100),
+                Duration.ofMillis(200));
+        when(idempotencyKeyJdbcRepository.find(anyString(), any())).thenReturn(Optional.empty());
+        var executions = new AtomicInteger();
+        var firstStarted = new CountDownLatch(1);
+        var releaseFirst = new CountDownLatch(1);
+
+        var timedOut = new MockHttpServletResponse();
+        var retried = new MockHttpServletResponse();
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            var firstDone = executor.submit(() -> {
+                filter.doFilter(post("key-6"), new MockHttpServletResponse(), (request, response) -> {
+                    firstStarted.countDown();
+                    await(releaseFirst);
+                    executions.incrementAndGet();
+                    ((HttpServletResponse) response).setStatus(503);
+                });
+                return null;
+            });
+            assertThat(firstStarted.await(5, TimeUnit.SECONDS)).isTrue();
+            filter.doFilter(post("key-6"), timedOut,
+                    (request, response) -> created(executions, (HttpServletResponse) response));
+            var retryDone = executor.submit(() -> {
+                filter.doFilter(post("key-6"), retried,
+                        (request, response) -> created(executions, (HttpServletResponse) response));
+                return null;
+            });
+            releaseFirst.countDown();
+            firstDone.get(5, TimeUnit.SECONDS);
+            retryDone.get(5, TimeUnit.SECONDS);
+        }
+
+        assertThat(timedOut.getStatus()).isEqualTo(409);
+        assertThat(retried.getStatus()).isEqualTo(201);
+        assertThat(executions).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("Requests without a key are not affected")
+    public void shouldPassRequestsWithoutKey() throws Exception {
+        var executions = new AtomicInteger();
+
+        for (int i = 0; i < 2; i++) {
+            filter.doFilter(new MockHttpServletRequest("POST", "/api/v1/users"), new MockHttpServletResponse(),
+                    (request, response) -> created(executions, (HttpServletResponse) response));
+        }
+
+        assertThat(executions).hasValue(2);
+        verifyNoInteractions(idempotencyKeyJdbcRepository);
+    }
+
+    private static MockHttpServletRequest post(String idempotencyKey) {
+        return post(idempotencyKey, "");
+    }
+
+    private static MockHttpServletRequest post(String idempotencyKey, String body) {
+        var request = new MockHttpServletRequest("POST", "/api/v1/users");
+        request.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, idempotencyKey);
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    private static void created(AtomicInteger executions, HttpServletResponse response) throws IOException {
+        executions.incrementAndGet();
+        response.setStatus(201);
+        response.setHeader(HttpHeaders.LOCATION, "/api/v1/users/2");
+        response.setContentType("application/json");
+        response.getOutputStream().write(CREATED_BODY.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.oleksiity.usersapi.config;
+
+import com.oleksiity.usersapi.controller.payload.UserFilter;
+import com.oleksiity.usersapi.service.UserTableVersion;
+import com.oleksiity.usersapi.service.impl.UserServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.annotation.AnnotationTransactionAttributeSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReplicaRoutingDataSourceTest {
+
+    private static final Clock CLOCK = Clock.fixed(Instant.ofEpochMilli(1_000_000L), ZoneOffset.UTC);
+
+    @Mock
+    private DataSource primary;
+
+    @Mock
+    private DataSource replica;
+
+    @Mock
+    private Connection connection;
+
+    @AfterEach
+    public void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        ReplicaRoutingDataSource.unpin();
+    }
+
+    @Test
+    @DisplayName("Read-only transactions use the replica unless the thread is pinned to the primary")
+    public void shouldRouteReadOnlyTransactionsToReplica() throws Exception {
+        var dataSource = new ReplicaRoutingDataSource(primary, replica);
+        when(primary.getConnection()).thenReturn(connection);
+        when(replica.getConnection()).thenReturn(connection);
+
+        dataSource.getConnection();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        dataSource.getConnection();
+        ReplicaRoutingDataSource.pinToPrimary();
+        dataSource.getConnection();
+
+        verify(primary, times(2)).getConnection();
+        verify(replica, times(1)).getConnection();
+    }
+
+    @Test
+    @DisplayName("A read run on the primary goes there and leaves the pin of the thread as it was")
+    public void shouldRunOnPrimaryAndRestorePin() {
+        var dataSource = new ReplicaRoutingDataSource(primary, replica);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertThat(ReplicaRoutingDataSource.onPrimary(dataSource::determineCurrentLookupKey))
+                .isEqualTo(ReplicaRoutingDataSource.Route.PRIMARY);
+        assertThat(dataSource.determineCurrentLookupKey()).isEqualTo(ReplicaRoutingDataSource.Route.REPLICA);
+        ReplicaRoutingDataSource.pinToPrimary();
+        ReplicaRoutingDataSource.onPrimary(dataSource::determineCurrentLookupKey);
+        assertThat(ReplicaRoutingDataSource.isPinnedToPrimary()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Writes issue a token and reads with a live token are pinned to the primary")
+    public void shouldPinReadsToPrimaryWithinReadYourWritesWindow() throws Exception {
+        var filter = new ReadYourWritesFilter(Duration.ofSeconds(5), CLOCK);
+        List<Boolean> replicaUsed = new ArrayList<>();
+        var dataSource = new ReplicaRoutingDataSource(primary, replica) {
+            {
+                TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+            }
+
+            private void record() {
+                replicaUsed.add(determineCurrentLookupKey() == Route.REPLICA);
+            }
+        };
+
+        var writeResponse = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("POST", "/api/v1/users"), writeResponse,
+                (request, response) -> {
+                });
+        var token = writeResponse.getHeader(ReadYourWritesFilter.PRIMARY_UNTIL_HEADER);
+
+        assertThat(token).isEqualTo("1005000");
+        for (var header : new String[]{token, "1000000", "9999999", "not-a-token", null}) {
+            var read = new MockHttpServletRequest("GET", "/api/v1/users/1");
+            if (header != null) {
+                read.addHeader(ReadYourWritesFilter.PRIMARY_UNTIL_HEADER, header);
+            }
+            filter.doFilter(read, new MockHttpServletResponse(), (request, response) -> dataSource.record());
+        }
+        dataSource.record();
+
+        assertThat(replicaUsed).containsExactly(false, true, true, true, true, true);
+    }
+
+    @Test
+    @DisplayName("The list validator is read in a read-only transaction, from the same database as the list")
+    public void shouldReadTableVersionLikeUserLists() throws Exception {
+        var transactionAttributes = new AnnotationTransactionAttributeSource();
+
+        assertThat(transactionAttributes.getTransactionAttribute(
+                UserTableVersion.class.getMethod("current"), UserTableVersion.class).isReadOnly()).isTrue();
+        for (var listMethod : new Method[]{
+                UserServiceImpl.class.getMethod("getAllUsers", Pageable.class),
+                UserServiceImpl.class.getMethod("getAllUsersSlice", Pageable.class, UserFilter.class)}) {
+            assertThat(transactionAttributes.getTransactionAttribute(listMethod, UserServiceImpl.class).isReadOnly())
+                    .isTrue();
+        }
+    }
+}
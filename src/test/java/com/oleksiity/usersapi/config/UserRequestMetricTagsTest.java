@@ -0,0 +1,45 @@
+package com.oleksiity.usersapi.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserRequestMetricTagsTest {
+
+    @Test
+    @DisplayName("Sort field and filter tags are taken from the request parameters")
+    public void shouldTagSortFieldAndFilter() {
+        var request = new MockHttpServletRequest("GET", "/api/v1/users");
+        request.setParameter("sortField", "BIRTH_DATE");
+        request.setParameter("startDate", "1960-01-01");
+
+        assertThat(UserRequestMetricTags.sortField(request)).isEqualTo("BIRTH_DATE");
+        assertThat(UserRequestMetricTags.filter(request)).isEqualTo("birthDateRange");
+    }
+
+    @Test
+    @DisplayName("Filter tag names each applied filter once, in a fixed order")
+    public void shouldTagCombinedFilters() {
+        var request = new MockHttpServletRequest("GET", "/api/v1/users");
+        request.setParameter("emailDomain", "gunners.com");
+        request.setParameter("minAge", "30");
+        request.setParameter("maxAge", "60");
+        request.setParameter("namePrefix", "Ar");
+
+        assertThat(UserRequestMetricTags.filter(request)).isEqualTo("birthDateRange+namePrefix+emailDomain");
+    }
+
+    @Test
+    @DisplayName("Unknown sort field is not used as a tag value")
+    public void shouldKeepTagCardinalityLow() {
+        var withoutParams = new MockHttpServletRequest("GET", "/api/v1/users");
+        var withUnknownSortField = new MockHttpServletRequest("GET", "/api/v1/users");
+        withUnknownSortField.setParameter("sortField", "password");
+
+        assertThat(UserRequestMetricTags.sortField(withoutParams)).isEqualTo("default");
+        assertThat(UserRequestMetricTags.filter(withoutParams)).isEqualTo("none");
+        assertThat(UserRequestMetricTags.sortField(withUnknownSortField)).isEqualTo("invalid");
+    }
+}
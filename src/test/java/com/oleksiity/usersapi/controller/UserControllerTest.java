@@ -2,35 +2,69 @@ package com.oleksiity.usersapi.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.oleksiity.usersapi.UserDataHelper;
+import com.oleksiity.usersapi.config.CacheConfig;
 import com.oleksiity.usersapi.controller.payload.CreateUpdateUserPayload;
+import com.oleksiity.usersapi.controller.payload.UserCursor;
+import com.oleksiity.usersapi.controller.payload.UserFilter;
+import com.oleksiity.usersapi.controller.payload.UserSortField;
+import com.oleksiity.usersapi.dto.CursorPage;
+import com.oleksiity.usersapi.dto.UpsertedUser;
+import com.oleksiity.usersapi.dto.UserBatchResultDto;
 import com.oleksiity.usersapi.dto.UserDto;
+import com.oleksiity.usersapi.dto.UserImportResultDto;
+import com.oleksiity.usersapi.dto.UserLookup;
 import com.oleksiity.usersapi.entity.User;
+import com.oleksiity.usersapi.exception.EmailMismatchException;
 import com.oleksiity.usersapi.exception.InvalidDateRangeException;
+import com.oleksiity.usersapi.exception.InvalidFilterException;
+import com.oleksiity.usersapi.exception.PreconditionFailedException;
+import com.oleksiity.usersapi.exception.UserConflictException;
+import com.oleksiity.usersapi.exception.UserNotFoundException;
 import com.oleksiity.usersapi.mapper.UserMapper;
+import com.oleksiity.usersapi.service.UserImportService;
+import com.oleksiity.usersapi.service.UserResponseCache;
 import com.oleksiity.usersapi.service.UserService;
+import com.oleksiity.usersapi.service.UserTableVersion;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
+import java.io.ByteArrayInputStream;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.Stream;
 import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 
 @WebMvcTest(UserController.class)
+@Import(UserResponseCache.class)
 public class UserControllerTest {
 
     @Autowired
@@ -39,12 +73,32 @@ public class UserControllerTest {
     @MockBean
     private UserService userService;
 
+    @MockBean
+    private UserImportService userImportService;
+
     @MockBean
     private UserMapper userMapper;
 
     @Autowired
     private ObjectMapper objectMapper;
 
+    @MockBean
+    private UserTableVersion userTableVersion;
+
+    @BeforeEach
+    public void setUp() {
+        when(userTableVersion.current()).thenReturn(new UserTableVersion.Snapshot(0L));
+    }
+
+    @TestConfiguration
+    static class CacheTestConfig {
+
+        @Bean
+        public CacheManager cacheManager() {
+            return new ConcurrentMapCacheManager(CacheConfig.USER_RESPONSES_CACHE);
+        }
+    }
+
     @Test
     @DisplayName("Should successfully create new user")
     public void testRegisterUser() throws Exception {
@@ -106,6 +160,113 @@ public class UserControllerTest {
 
     }
 
+    @Test
+    @DisplayName("Should return conflict when the new user's email is already taken")
+    public void testReturnsConflictWhenRegisterExistingUser() throws Exception {
+        var userPayload = UserDataHelper.convertUserToCreateUpdateUserPayload(UserDataHelper.getSergioRamos());
+
+        when(userService.registerUser(any(CreateUpdateUserPayload.class))).thenThrow(new UserConflictException());
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(userPayload)))
+                .andExpect(MockMvcResultMatchers.status().isConflict())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.detail").value("Error 409: Conflict"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.errors[0]")
+                        .value("The user with the same email or phone number already exists"));
+    }
+
+    @Test
+    @DisplayName("Should register users in batch and return the result of every item")
+    public void testRegisterUsersInBatch() throws Exception {
+        var userPayloads = List.of(
+                UserDataHelper.convertUserToCreateUpdateUserPayload(UserDataHelper.getSergioRamos()),
+                UserDataHelper.convertUserToCreateUpdateUserPayload(UserDataHelper.getArsenWenger()));
+
+        when(userService.registerUsers(eq(userPayloads))).thenReturn(List.of(
+                UserBatchResultDto.builder().index(0).status(UserBatchResultDto.Status.CREATED)
+                        .id(1L).email("sergio@madrid.com").build(),
+                UserBatchResultDto.builder().index(1).status(UserBatchResultDto.Status.CONFLICT)
+                        .email("awenger@gunners.com").build()));
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/users/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(userPayloads)))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.data.length()").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.data[0].status").value("CREATED"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.data[0].id").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.data[1].status").value("CONFLICT"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.data[1].id").doesNotExist())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.data[1].email").value("awenger@gunners.com"));
+
+        verify(userService, times(1)).registerUsers(eq(userPayloads));
+    }
+
+    @Test
+    @DisplayName("Should return 201 when upsert by email creates the user and 200 when it replaces one")
+    public void testUpsertUserByEmail() throws Exception {
+        var user = UserDataHelper.getArsenWenger();
+        var userPayload = UserDataHelper.convertUserToCreateUpdateUserPayload(user);
+
+        when(userService.upsertUserByEmail(eq(user.getEmail()), eq(userPayload)))
+                .thenReturn(new UpsertedUser(user, true))
+                .thenReturn(new UpsertedUser(user, false));
+        when(userMapper.toDto(eq(user))).thenReturn(UserDataHelper.convertUserToUserDto(user));
+
+        mockMvc.perform(MockMvcRequestBuilders.put("/api/v1/users/by-email/{email}", user.getEmail())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(userPayload)))
+                .andExpect(MockMvcResultMatchers.status().isCreated())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.LOCATION, "/api/v1/users/2"))
+                .andExpect(MockMvcResultMatchers.header().exists(HttpHeaders.ETAG))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.status").value("CREATED"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.data[0].email").value("awenger@gunners.com"));
+
+        mockMvc.perform(MockMvcRequestBuilders.put("/api/v1/users/by-email/{email}", user.getEmail())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(userPayload)))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().doesNotExist(HttpHeaders.LOCATION))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.status").value("UPDATED"));
+    }
+
+    @Test
+    @DisplayName("Should return 400 when the email in the path differs from the email in the body")
+    public void testUpsertUserByEmailWithAnotherEmail() throws Exception {
+        var userPayload = UserDataHelper.convertUserToCreateUpdateUserPayload(UserDataHelper.getArsenWenger());
+
+        when(userService.upsertUserByEmail(eq("sergio@madrid.com"), eq(userPayload)))
+                .thenThrow(new EmailMismatchException());
+
+        mockMvc.perform(MockMvcRequestBuilders.put("/api/v1/users/by-email/{email}", "sergio@madrid.com")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(userPayload)))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Should upsert users by email in batch and return the result of every item")
+    public void testUpsertUsersByEmailInBatch() throws Exception {
+        var userPayloads = List.of(
+                UserDataHelper.convertUserToCreateUpdateUserPayload(UserDataHelper.getSergioRamos()),
+                UserDataHelper.convertUserToCreateUpdateUserPayload(UserDataHelper.getArsenWenger()));
+
+        when(userService.upsertUsersByEmail(eq(userPayloads))).thenReturn(List.of(
+                UserBatchResultDto.builder().index(0).status(UserBatchResultDto.Status.UPDATED)
+                        .id(1L).email("sergio@madrid.com").build(),
+                UserBatchResultDto.builder().index(1).status(UserBatchResultDto.Status.CREATED)
+                        .id(2L).email("awenger@gunners.com").build()));
+
+        mockMvc.perform(MockMvcRequestBuilders.put("/api/v1/users/by-email")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(userPayloads)))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.data[0].status").value("UPDATED"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.data[1].status").value("CREATED"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.data[1].id").value(2));
+    }
+
     @Test
     @DisplayName("Should successfully get user with id 2")
     public void testGetUserById() throws Exception {
@@ -128,16 +289,210 @@ public class UserControllerTest {
         verify(userService, times(1)).findUserById(eq(2L));
     }
 
+    @Test
+    @DisplayName("Should serve repeated user requests from the encoded response cache, gzipped when accepted")
+    public void testGetUserFromResponseCache() throws Exception {
+        var user = UserDataHelper.getEricCantona();
+        user.setVersion(3L);
+
+        when(userService.findUserById(eq(7L))).thenReturn(user);
+        when(userMapper.toDto(eq(user))).thenReturn(UserDataHelper.convertUserToUserDto(user));
+
+        var json = mockMvc.perform(get("/api/v1/users/{id}", 7))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "\"3\""))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.data[0].email").value("cantona@machester.com"))
+                .andReturn().getResponse().getContentAsByteArray();
+        var gzipped = mockMvc.perform(get("/api/v1/users/{id}", 7)
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "\"3-gzip\""))
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        try (var gzip = new GZIPInputStream(new ByteArrayInputStream(gzipped))) {
+            assertThat(gzip.readAllBytes()).isEqualTo(json);
+        }
+        verify(userMapper, times(1)).toDto(eq(user));
+    }
+
+    @Test
+    @DisplayName("Should validate each encoding of a user with its own ETag and honour refused encodings")
+    public void testGetUserEncodingsHaveOwnETags() throws Exception {
+        var user = UserDataHelper.getEricCantona();
+        user.setVersion(3L);
+
+        when(userService.findUserById(eq(7L))).thenReturn(user);
+        when(userMapper.toDto(eq(user))).thenReturn(UserDataHelper.convertUserToUserDto(user));
+
+        mockMvc.perform(get("/api/v1/users/{id}", 7)
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0, deflate"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "\"3\""));
+        mockMvc.perform(get("/api/v1/users/{id}", 7)
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.CONTENT_ENCODING, "gzip"));
+        mockMvc.perform(get("/api/v1/users/{id}", 7)
+                        .header(HttpHeaders.ACCEPT_ENCODING, "br, *;q=0.5")
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"3-gzip\""))
+                .andExpect(MockMvcResultMatchers.status().isNotModified())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING));
+    }
+
+    @Test
+    @DisplayName("Should successfully get user by email regardless of its case")
+    public void testGetUserByEmail() throws Exception {
+
+        var user = UserDataHelper.getArsenWenger();
+        var userDto = UserDataHelper.convertUserToUserDto(user);
+
+        when(userService.findUserByEmail(eq("AWenger@Gunners.com"))).thenReturn(user);
+        when(userMapper.toDto(eq(user))).thenReturn(userDto);
+
+        mockMvc.perform(get("/api/v1/users/by-email/{email}", "AWenger@Gunners.com"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.data.length()").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.data[0].email").value("awenger@gunners.com"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.links.ref").isNotEmpty());
+
+        verify(userService, times(1)).findUserByEmail(eq("AWenger@Gunners.com"));
+    }
+
+    @Test
+    @DisplayName("Should get users by ids from the query string or the body and report missing ids")
+    public void testGetUsersByIds() throws Exception {
+        var users = List.of(UserDataHelper.getEricCantona(), UserDataHelper.getArsenWenger());
+        var userDtos = users.stream().map(UserDataHelper::convertUserToUserDto).toList();
+
+        when(userService.findUsersByIds(eq(List.of(7L, 9L, 2L)))).thenReturn(new UserLookup(users, List.of(9L)));
+        when(userMapper.toDto(eq(users))).thenReturn(userDtos);
+
+        mockMvc.perform(get("/api/v1/users").param("ids", "7,9,2"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.data.length()").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.data[0].lastName").value("Cantona"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.data[1].lastName").value("Wenger"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.missingIds[0]").value(9));
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/users/by-id")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[7, 9, 2]"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.data.length()").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.missingIds[0]").value(9));
+
+        verify(userService, times(2)).findUsersByIds(eq(List.of(7L, 9L, 2L)));
+        verify(userService, never()).getAllUsers(any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("Should return not modified without mapping the user when ETag matches")
+    public void testGetUserByIdNotModified() throws Exception {
+        var user = UserDataHelper.getArsenWenger();
+        user.setVersion(3L);
+
+        when(userService.findUserById(eq(2L))).thenReturn(user);
+
+        mockMvc.perform(get("/api/v1/users/{id}", 2)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+                .andExpect(MockMvcResultMatchers.status().isNotModified())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "\"3\""))
+                .andExpect(MockMvcResultMatchers.content().string(""));
+
+        verify(userMapper, never()).toDto(any(User.class));
+    }
+
+    @Test
+    @DisplayName("Should accept the ETag of the gzip representation as a precondition for the same version")
+    public void testReplaceUserWithGzipETag() throws Exception {
+        var user = UserDataHelper.getEricCantona();
+        var userPayload = UserDataHelper.convertUserToCreateUpdateUserPayload(user);
+
+        when(userService.replaceUser(eq(userPayload), eq(7L), eq(2L))).thenReturn(user);
+
+        mockMvc.perform(MockMvcRequestBuilders.put("/api/v1/users/{id}", 7)
+                        .header(HttpHeaders.IF_MATCH, "\"2-gzip\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(userPayload)))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+
+        verify(userService, times(1)).replaceUser(eq(userPayload), eq(7L), eq(2L));
+    }
+
+    @Test
+    @DisplayName("Should return precondition failed when replacing user with outdated ETag")
+    public void testReplaceUserWithOutdatedETag() throws Exception {
+        var userPayload = UserDataHelper.convertUserToCreateUpdateUserPayload(UserDataHelper.getEricCantona());
+
+        when(userService.replaceUser(eq(userPayload), eq(7L), eq(2L)))
+                .thenThrow(new PreconditionFailedException());
+
+        mockMvc.perform(MockMvcRequestBuilders.put("/api/v1/users/{id}", 7)
+                        .header(HttpHeaders.IF_MATCH, "\"2\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(userPayload)))
+                .andExpect(MockMvcResultMatchers.status().isPreconditionFailed())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.errors[0]").value(
+                        "The user has been modified since it was read. Get the user again and retry with its current ETag"));
+    }
+
+    @Test
+    @DisplayName("Should return conflict when the replacement takes the email of another user")
+    public void testReplaceUserWithTakenEmail() throws Exception {
+        var userPayload = UserDataHelper.convertUserToCreateUpdateUserPayload(UserDataHelper.getEricCantona());
+
+        when(userService.replaceUser(eq(userPayload), eq(7L), isNull()))
+                .thenThrow(new DuplicateKeyException("duplicate key value violates unique constraint"));
+
+        mockMvc.perform(MockMvcRequestBuilders.put("/api/v1/users/{id}", 7)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(userPayload)))
+                .andExpect(MockMvcResultMatchers.status().isConflict())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.detail").value("Error 409: Conflict"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.errors[0]")
+                        .value("The user with the same email or phone number already exists"));
+    }
+
+    @Test
+    @DisplayName("Should return not modified for unchanged user list without querying users")
+    public void testGetAllUsersNotModified() throws Exception {
+        var userPage = new PageImpl<>(List.of(UserDataHelper.convertUserToUserDto(UserDataHelper.getSergioRamos())), PageRequest.of(0, 10), 1);
+
+        when(userService.getAllUsers(any())).thenReturn(userPage);
+        when(userTableVersion.current()).thenReturn(new UserTableVersion.Snapshot(41L));
+
+        var eTag = mockMvc.perform(get("/api/v1/users?page=0&sortField=ID"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().doesNotExist(HttpHeaders.LAST_MODIFIED))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/v1/users?page=0&sortField=ID")
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(MockMvcResultMatchers.status().isNotModified());
+        mockMvc.perform(get("/api/v1/users?page=1&sortField=ID")
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+        // A change committed through any instance bumps the version kept in the database
+        when(userTableVersion.current()).thenReturn(new UserTableVersion.Snapshot(42L));
+        mockMvc.perform(get("/api/v1/users?page=0&sortField=ID")
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+
+        verify(userService, times(3)).getAllUsers(any());
+    }
+
     @Test
     @DisplayName("Should successfully get all user list")
     public void testGetAllUsers() throws Exception {
-        List<User> users = List.of(UserDataHelper.getSergioRamos(), UserDataHelper.getArsenWenger(), UserDataHelper.getEricCantona());
+        List<UserDto> users = Stream.of(UserDataHelper.getSergioRamos(), UserDataHelper.getArsenWenger(), UserDataHelper.getEricCantona())
+                .map(UserDataHelper::convertUserToUserDto)
+                .toList();
         var userPage = new PageImpl<>(users, PageRequest.of(0, 10), 1);
 
         when(userService.getAllUsers(any())).thenReturn(userPage);
-        when(userMapper.toDto(anyList())).thenReturn(users.stream()
-                .map(UserDataHelper::convertUserToUserDto)
-                .toList());
 
         mockMvc.perform(get("/api/v1/users")
                         .contentType(MediaType.APPLICATION_JSON))
@@ -166,15 +521,15 @@ public class UserControllerTest {
                 .andExpect(MockMvcResultMatchers.jsonPath("$.pagination.totalElements").value(3));
 
         verify(userService, times(1)).getAllUsers(any(PageRequest.class));
+        verify(userMapper, times(0)).toDto(anyList());
     }
 
     @Test
     @DisplayName("Should successfully get users with the custom pagination settings in request and return link on the next page in response")
     public void testGetAllUsersWithCustomPaginationAndNextPageRef() throws Exception {
-        var userPage = new PageImpl<>(List.of(UserDataHelper.getSergioRamos()), PageRequest.of(0, 1), 3);
+        var userPage = new PageImpl<>(List.of(UserDataHelper.convertUserToUserDto(UserDataHelper.getSergioRamos())), PageRequest.of(0, 1), 3);
 
         when(userService.getAllUsers(any())).thenReturn(userPage);
-        when(userMapper.toDto(anyList())).thenReturn(List.of(UserDataHelper.convertUserToUserDto(UserDataHelper.getSergioRamos())));
 
         mockMvc.perform(get("/api/v1/users?pageSize=1")
                         .contentType(MediaType.APPLICATION_JSON))
@@ -199,10 +554,9 @@ public class UserControllerTest {
     @DisplayName("Should successfully get users with the custom pagination settings in request and return link on the previous page in response")
     public void testGetAllUsersWithCustomPaginationAndPrevPageRef() throws Exception {
 
-        var userPage = new PageImpl<>(List.of(UserDataHelper.getArsenWenger()), PageRequest.of(1, 1), 3);
+        var userPage = new PageImpl<>(List.of(UserDataHelper.convertUserToUserDto(UserDataHelper.getArsenWenger())), PageRequest.of(1, 1), 3);
 
         when(userService.getAllUsers(any())).thenReturn(userPage);
-        when(userMapper.toDto(anyList())).thenReturn(List.of(UserDataHelper.convertUserToUserDto(UserDataHelper.getArsenWenger())));
 
         mockMvc.perform(get("/api/v1/users?pagepageSize=1")
                         .contentType(MediaType.APPLICATION_JSON))
@@ -222,17 +576,187 @@ public class UserControllerTest {
         verify(userService, times(1)).getAllUsers(any(PageRequest.class));
     }
 
+    @Test
+    @DisplayName("Should get users without totals when includeTotals is false and keep the flag in the next page ref")
+    public void testGetAllUsersWithoutTotals() throws Exception {
+        var userSlice = new SliceImpl<>(List.of(UserDataHelper.convertUserToUserDto(UserDataHelper.getSergioRamos())), PageRequest.of(0, 1), true);
+
+        when(userService.getAllUsersSlice(any())).thenReturn(userSlice);
+
+        mockMvc.perform(get("/api/v1/users?pageSize=1&includeTotals=false")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.data.length()").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.data[0].firstName").value("Sergio"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.pagination.page").value(0))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.pagination.pageSize").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.pagination.totalPages").doesNotExist())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.pagination.totalElements").doesNotExist())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.links.next")
+                        .value("/api/v1/users?page=1&pageSize=1&sortField=ID&sortDirection=DESC&includeTotals=false"));
+
+        verify(userService, times(1)).getAllUsersSlice(any(PageRequest.class));
+        verify(userService, times(0)).getAllUsers(any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("Should successfully get the first users page in cursor mode and return cursor link on the next page")
+    public void testGetAllUsersByCursorReturnsNextCursorRef() throws Exception {
+        var users = List.of(UserDataHelper.getEricCantona(), UserDataHelper.getArsenWenger());
+        var expectedCursor = UserCursor.first(UserSortField.LAST_NAME, Sort.Direction.ASC);
+
+        when(userService.getAllUsers(eq(expectedCursor), eq(2))).thenReturn(new CursorPage<>(users, true, false));
+        when(userMapper.toDto(anyList())).thenReturn(users.stream()
+                .map(UserDataHelper::convertUserToUserDto)
+                .toList());
+
+        var nextCursor = UserCursor.after(UserDataHelper.getArsenWenger(), UserSortField.LAST_NAME, Sort.Direction.ASC);
+
+        mockMvc.perform(get("/api/v1/users?cursor=&pageSize=2&sortField=LAST_NAME&sortDirection=ASC")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.data.length()").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.data[0].lastName").value("Cantona"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.data[1].lastName").value("Wenger"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.pagination.pageSize").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.pagination.totalElements").doesNotExist())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.links.prev").doesNotExist())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.links.next")
+                        .value("/api/v1/users?cursor=" + nextCursor.encode() + "&pageSize=2"));
+
+        verify(userService, times(1)).getAllUsers(eq(expectedCursor), eq(2));
+        verify(userService, times(0)).getAllUsers(any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("Should decode the cursor from request and return both cursor links for a middle page")
+    public void testGetAllUsersByCursorReturnsNextAndPrevCursorRefs() throws Exception {
+        var requestCursor = UserCursor.after(UserDataHelper.getSergioRamos(), UserSortField.ADDRESS, Sort.Direction.DESC);
+        var user = UserDataHelper.getArsenWenger();
+
+        when(userService.getAllUsers(eq(requestCursor), eq(1))).thenReturn(new CursorPage<>(List.of(user), true, true));
+        when(userMapper.toDto(anyList())).thenReturn(List.of(UserDataHelper.convertUserToUserDto(user)));
+
+        var nextCursor = UserCursor.after(user, UserSortField.ADDRESS, Sort.Direction.DESC);
+        var prevCursor = UserCursor.before(user, UserSortField.ADDRESS, Sort.Direction.DESC);
+
+        mockMvc.perform(get("/api/v1/users?pageSize=1&cursor=" + requestCursor.encode())
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.data.length()").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.data[0].firstName").value("Arsen"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.links.next")
+                        .value("/api/v1/users?cursor=" + nextCursor.encode() + "&pageSize=1"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.links.prev")
+                        .value("/api/v1/users?cursor=" + prevCursor.encode() + "&pageSize=1"));
+
+        verify(userService, times(1)).getAllUsers(eq(requestCursor), eq(1));
+    }
+
+    @Test
+    @DisplayName("Should return bad request when the cursor can not be decoded")
+    public void testGetAllUsersByInvalidCursor() throws Exception {
+        mockMvc.perform(get("/api/v1/users?cursor=not-a-cursor")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.status").value(400))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.detail").value("Request contains errors"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.errors[0]")
+                        .value("The specified cursor is not valid. Use the 'next' or 'prev' link of a previous response"));
+
+        verify(userService, times(0)).getAllUsers(any(UserCursor.class), anyInt());
+    }
+
+    @Test
+    @DisplayName("Should search users and return the encoded query in the next page ref")
+    public void testSearchUsers() throws Exception {
+        var userSlice = new SliceImpl<>(List.of(UserDataHelper.convertUserToUserDto(UserDataHelper.getSergioRamos())),
+                PageRequest.of(0, 1), true);
+
+        when(userService.searchUsers(eq("concha espina"), eq(PageRequest.of(0, 1)))).thenReturn(userSlice);
+
+        mockMvc.perform(get("/api/v1/users/search")
+                        .param("q", "concha espina")
+                        .param("pageSize", "1"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.data.length()").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.data[0].lastName").value("Ramos"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.pagination.totalElements").doesNotExist())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.links.next")
+                        .value("/api/v1/users/search?q=concha%20espina&page=1&pageSize=1"));
+    }
+
+    @Test
+    @DisplayName("Should import users from CSV body")
+    public void testImportUsersFromCsv() throws Exception {
+        var rejection = UserBatchResultDto.builder()
+                .index(1)
+                .status(UserBatchResultDto.Status.CONFLICT)
+                .email("sergio@madrid.com")
+                .build();
+
+        when(userImportService.importUsers(any(), eq(UserImportService.Format.CSV)))
+                .thenReturn(new UserImportResultDto(2, 1, 1, List.of(rejection)));
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/users/import")
+                        .contentType("text/csv")
+                        .content("email,firstName,lastName,birthDate\n"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.data[0].received").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.data[0].imported").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.data[0].rejected").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.data[0].rejections[0].status").value("CONFLICT"));
+    }
+
+    @Test
+    @DisplayName("Should stream all users as NDJSON")
+    @SuppressWarnings("unchecked")
+    public void testExportUsers() throws Exception {
+        var sergio = UserDataHelper.getSergioRamos();
+        var arsen = UserDataHelper.getArsenWenger();
+
+        doAnswer(invocation -> {
+            Consumer<User> consumer = invocation.getArgument(2);
+            consumer.accept(sergio);
+            consumer.accept(arsen);
+            return null;
+        }).when(userService).exportUsers(isNull(), isNull(), any(Consumer.class));
+        when(userMapper.toDto(eq(sergio))).thenReturn(UserDataHelper.convertUserToUserDto(sergio));
+        when(userMapper.toDto(eq(arsen))).thenReturn(UserDataHelper.convertUserToUserDto(arsen));
+
+        var expected = objectMapper.writeValueAsString(UserDataHelper.convertUserToUserDto(sergio)) + "\n"
+                + objectMapper.writeValueAsString(UserDataHelper.convertUserToUserDto(arsen)) + "\n";
+
+        mockMvc.perform(get("/api/v1/users/export"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andExpect(MockMvcResultMatchers.content().string(expected));
+    }
+
+    @Test
+    @DisplayName("Should return bad request when export users by invalid birth date range")
+    @SuppressWarnings("unchecked")
+    public void testExportUsersByInvalidDateRange() throws Exception {
+        doThrow(new InvalidDateRangeException())
+                .when(userService).exportUsers(any(LocalDate.class), any(LocalDate.class), any(Consumer.class));
+
+        mockMvc.perform(get("/api/v1/users/export?startDate=1945-01-01&endDate=1944-01-01"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.errors[0]")
+                        .value("The specified date range is not valid. 'startDate' must be less than 'endDate'"));
+    }
+
     @Test
     @DisplayName("Should successfully get users by birth date range functionality")
     public void getUsersByDateRange() throws Exception {
         LocalDate startDate = LocalDate.of(1945, 1, 1);
         LocalDate endDate = LocalDate.of(1965, 1, 1);
 
-        var userPage = new PageImpl<>(List.of(UserDataHelper.getArsenWenger()), PageRequest.of(0, 10), 1);
+        var userPage = new PageImpl<>(List.of(UserDataHelper.convertUserToUserDto(UserDataHelper.getArsenWenger())), PageRequest.of(0, 10), 1);
 
-        when(userService.getAllUsersByDateRange(any(Pageable.class), eq(startDate), eq(endDate)))
+        when(userService.getAllUsers(any(Pageable.class),
+                eq(new UserFilter(startDate, endDate, null, null, null, null, null))))
                 .thenReturn(userPage);
-        when(userMapper.toDto(anyList())).thenReturn(List.of(UserDataHelper.convertUserToUserDto(UserDataHelper.getArsenWenger())));
 
         mockMvc.perform(get("/api/v1/users?startDate=1945-01-01&endDate=1965-01-01")
                         .contentType(MediaType.APPLICATION_JSON))
@@ -248,7 +772,47 @@ public class UserControllerTest {
                 .andExpect(MockMvcResultMatchers.jsonPath("$.pagination.totalPages").value(1))
                 .andExpect(MockMvcResultMatchers.jsonPath("$.pagination.totalElements").value(1));
 
-        verify(userService, times(1)).getAllUsersByDateRange(any(PageRequest.class), eq(startDate), eq(endDate));
+        verify(userService, times(1)).getAllUsers(any(PageRequest.class),
+                eq(new UserFilter(startDate, endDate, null, null, null, null, null)));
+    }
+
+    @Test
+    @DisplayName("Should pass a single birth date bound and the other filters on and keep them in the page links")
+    public void getUsersByOpenEndedFilter() throws Exception {
+        var filter = new UserFilter(LocalDate.of(1945, 1, 1), null, 30, null, "R&D", true, "gunners.com");
+        var userPage = new SliceImpl<>(List.of(UserDataHelper.convertUserToUserDto(UserDataHelper.getArsenWenger())),
+                PageRequest.of(0, 1), true);
+
+        when(userService.getAllUsersSlice(any(Pageable.class), eq(filter))).thenReturn(userPage);
+
+        mockMvc.perform(get("/api/v1/users?startDate=1945-01-01&minAge=30&hasPhone=true"
+                        + "&emailDomain=gunners.com&pageSize=1&includeTotals=false")
+                        .param("namePrefix", "R&D")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.data.length()").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.links.next").value("/api/v1/users?page=1&pageSize=1"
+                        + "&sortField=ID&sortDirection=DESC&includeTotals=false&startDate=1945-01-01&minAge=30"
+                        + "&namePrefix=R%26D&hasPhone=true&emailDomain=gunners.com"));
+
+        verify(userService, times(1)).getAllUsersSlice(any(PageRequest.class), eq(filter));
+        verify(userService, times(0)).getAllUsersSlice(any(PageRequest.class));
+    }
+
+    @Test
+    @DisplayName("Should reject an invalid filter")
+    public void ThrowsInvalidFilterExceptionWhenGetUsersByInvalidFilter() throws Exception {
+        var filter = new UserFilter(null, null, 60, 30, null, null, null);
+
+        doThrow(new InvalidFilterException())
+                .when(userService).getAllUsers(any(Pageable.class), eq(filter));
+
+        mockMvc.perform(get("/api/v1/users?minAge=60&maxAge=30")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.errors[0]").value(
+                        "The specified filter is not valid. Ages must be from 0 to 150 with 'minAge' not greater than "
+                                + "'maxAge', 'namePrefix' from 3 and 'emailDomain' from 1 to 100 characters long"));
     }
 
     @Test
@@ -258,7 +822,8 @@ public class UserControllerTest {
         LocalDate endDate = LocalDate.of(1944, 1, 1);
 
         doThrow(new InvalidDateRangeException())
-                .when(userService).getAllUsersByDateRange(any(Pageable.class), eq(startDate), eq(endDate));
+                .when(userService).getAllUsers(any(Pageable.class),
+                        eq(new UserFilter(startDate, endDate, null, null, null, null, null)));
 
         mockMvc.perform(get("/api/v1/users?startDate=1945-01-01&endDate=1944-01-01")
                         .contentType(MediaType.APPLICATION_JSON))
@@ -269,7 +834,8 @@ public class UserControllerTest {
                 .andExpect(MockMvcResultMatchers.jsonPath("$.errors").isNotEmpty())
                 .andExpect(MockMvcResultMatchers.jsonPath("$.errors[0]").value("The specified date range is not valid. 'startDate' must be less than 'endDate'"));
 
-        verify(userService, times(1)).getAllUsersByDateRange(any(PageRequest.class), eq(startDate), eq(endDate));
+        verify(userService, times(1)).getAllUsers(any(PageRequest.class),
+                eq(new UserFilter(startDate, endDate, null, null, null, null, null)));
     }
 
     @Test
@@ -280,7 +846,7 @@ public class UserControllerTest {
         var userDto = UserDataHelper.convertUserToUserDto(user);
         var userPayload = UserDataHelper.convertUserToCreateUpdateUserPayload(user);
 
-        when(userService.replaceUser(eq(userPayload), eq(7L))).thenReturn(user);
+        when(userService.replaceUser(eq(userPayload), eq(7L), isNull())).thenReturn(user);
         when(userMapper.toDto(eq(user))).thenReturn(userDto);
 
         mockMvc.perform(MockMvcRequestBuilders.put("/api/v1/users/{id}", 7)
@@ -296,7 +862,7 @@ public class UserControllerTest {
                 .andExpect(MockMvcResultMatchers.jsonPath("$.data[0].birthDate").value("1966-05-24"))
                 .andExpect(MockMvcResultMatchers.jsonPath("$.data[0].phoneNumber").value("0994562398"));
 
-        verify(userService, times(1)).replaceUser(eq(userPayload), eq(7L));
+        verify(userService, times(1)).replaceUser(eq(userPayload), eq(7L), isNull());
     }
 
     @Test
@@ -319,7 +885,7 @@ public class UserControllerTest {
         updatedUserDto.setPhoneNumber("0965439988");
         updatedUserDto.setBirthDate(LocalDate.of(1966, 5, 24));
 
-        when(userService.updateUser(eq(requestDto), eq(7L))).thenReturn(user);
+        when(userService.updateUser(eq(requestDto), eq(7L), isNull())).thenReturn(user);
         when(userMapper.toDto(eq(user))).thenReturn(updatedUserDto);
 
         mockMvc.perform(MockMvcRequestBuilders.patch("/api/v1/users/{id}", 7)
@@ -335,7 +901,7 @@ public class UserControllerTest {
                 .andExpect(MockMvcResultMatchers.jsonPath("$.data[0].birthDate").value("1966-05-24"))
                 .andExpect(MockMvcResultMatchers.jsonPath("$.data[0].phoneNumber").value("0965439988"));
 
-        verify(userService, times(1)).updateUser(eq(requestDto), eq(7L));
+        verify(userService, times(1)).updateUser(eq(requestDto), eq(7L), isNull());
     }
 
     @Test
@@ -367,4 +933,39 @@ public class UserControllerTest {
         verify(userService, times(1)).deleteUserById(999L);
 
     }
+
+    @Test
+    @DisplayName("Should keep 400 for malformed path variables, query parameters and bodies")
+    public void testReturnsBadRequestForMalformedRequests() throws Exception {
+
+        mockMvc.perform(get("/api/v1/users/{id}", "abc"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.status").value(400));
+        mockMvc.perform(get("/api/v1/users").param("sortField", "BOGUS"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+        mockMvc.perform(get("/api/v1/users/search"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+
+        verifyNoInteractions(userService);
+    }
+
+    @Test
+    @DisplayName("Should resolve error messages of an unsupported Accept-Language to the default locale without a session")
+    public void testErrorMessagesFallBackToDefaultLocaleWithoutSession() throws Exception {
+
+        when(userService.findUserById(eq(999L))).thenThrow(new UserNotFoundException());
+
+        var result = mockMvc.perform(get("/api/v1/users/{id}", 999)
+                        .header(HttpHeaders.ACCEPT_LANGUAGE, "uk-UA"))
+                .andExpect(MockMvcResultMatchers.status().isNotFound())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.detail").value("Error 404: Nothing has been found"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.errors[0]").value("The user with specified id not found"))
+                .andReturn();
+
+        assertThat(result.getRequest().getSession(false)).isNull();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,29 @@
+package com.oleksiity.usersapi.controller.heandlers;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SampledErrorLogTest {
+
+    @Test
+    @DisplayName("Only the first entry per exception type and interval is logged, the rest are counted")
+    public void shouldSuppressAndCountEntriesWithinInterval() throws InterruptedException {
+        var meterRegistry = new SimpleMeterRegistry();
+        var sampledErrorLog = new SampledErrorLog(Duration.ofMillis(200), meterRegistry);
+
+        assertThat(sampledErrorLog.sample("UserNotFoundException")).isZero();
+        assertThat(sampledErrorLog.sample("UserNotFoundException")).isEqualTo(-1);
+        assertThat(sampledErrorLog.sample("UserNotFoundException")).isEqualTo(-1);
+        assertThat(sampledErrorLog.sample("InvalidDateRangeException")).isZero();
+        Thread.sleep(250);
+
+        assertThat(sampledErrorLog.sample("UserNotFoundException")).isEqualTo(2);
+        assertThat(meterRegistry.get("users-api.errors.log.suppressed")
+                .tag("exception", "UserNotFoundException").counter().count()).isEqualTo(2);
+    }
+}
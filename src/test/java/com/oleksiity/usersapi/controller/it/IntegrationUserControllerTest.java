@@ -8,7 +8,9 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.jdbc.Sql;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
@@ -16,6 +18,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -34,6 +37,9 @@ public class IntegrationUserControllerTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     @Test
     void createUser_ReturnCreatedUserAndRefForEndpoint() throws Exception {
         var userPayload = UserDataHelper.convertUserToCreateUpdateUserPayload(UserDataHelper.getArsenWenger());
@@ -68,6 +74,48 @@ public class IntegrationUserControllerTest {
                 );
     }
 
+    @Test
+    @Sql("/sql/test-users.sql")
+    void createUserWithTakenEmail_ReturnConflict() throws Exception {
+        var user = UserDataHelper.getArsenWenger();
+        user.setEmail("sergio@madrid.com");
+        var userPayload = UserDataHelper.convertUserToCreateUpdateUserPayload(user);
+
+        var requestBuilder = MockMvcRequestBuilders.post("/api/v1/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(userPayload));
+        // when
+        this.mockMvc.perform(requestBuilder)
+                // then
+                .andDo(print())
+                .andExpectAll(
+                        status().isConflict(),
+                        content().json("""
+                                {
+                                    "errors": ["The user with the same email or phone number already exists"]
+                                }
+                                """)
+                );
+    }
+
+    @Test
+    @Sql("/sql/test-users.sql")
+    void exportUsersSinceStartDate_ReturnOnlyUsersBornSinceIt() throws Exception {
+        var requestBuilder = MockMvcRequestBuilders.get("/api/v1/users/export")
+                .param("startDate", "1960-01-01");
+        // when
+        var body = this.mockMvc.perform(requestBuilder)
+                // then
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(body.lines())
+                .hasSize(2)
+                .anyMatch(line -> line.contains("sergio@madrid.com"))
+                .anyMatch(line -> line.contains("cantona@machester.com"))
+                .noneMatch(line -> line.contains("awenger@gunners.com"));
+    }
+
     @Test
     @Sql("/sql/test-users.sql")
     void getUsers_ReturnsUsersList() throws Exception {
@@ -195,6 +243,40 @@ public class IntegrationUserControllerTest {
                 );
     }
 
+    @Test
+    @Sql("/sql/test-users.sql")
+    void findUsersByOpenEndedFilter_ReturnsUsersMatchingAllFilters() throws Exception {
+        // given
+        var requestBuilder = MockMvcRequestBuilders.get("/api/v1/users?startDate=1945-01-01&hasPhone=true&namePrefix=can");
+
+        // when
+        this.mockMvc.perform(requestBuilder)
+                // then
+                .andDo(print())
+                .andExpectAll(
+                        status().isOk(),
+                        content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON),
+                        content().json("""
+                                {
+                                    "pagination": {
+                                        "page": 0,
+                                        "pageSize": 10,
+                                        "totalPages": 1,
+                                        "totalElements": 1
+                                    },
+                                    "data": [
+                                       {
+                                           "email": "cantona@machester.com",
+                                           "firstName": "Eric",
+                                           "lastName": "Cantona",
+                                           "birthDate": "1966-05-24"
+                                       }
+                                    ]
+                                }
+                                """)
+                );
+    }
+
     @Test
     @Sql("/sql/test-users.sql")
     void findUsersByDateRange_ReturnsPageWithListOfUsersAcceptableByDateRange() throws Exception {
@@ -520,4 +602,19 @@ public class IntegrationUserControllerTest {
                                 """)
                 );
     }
+
+    @Test
+    @Sql("/sql/test-users.sql")
+    void changeMadeOutsideThisInstance_ChangesUserListETag() throws Exception {
+        var eTag = this.mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/users"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        this.mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/users").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+        // Written around the service, as another instance or a manual fix would
+        jdbcTemplate.update("update user_management.user set first_name = 'Changed' where id = 1");
+        this.mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/users").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk());
+    }
 }
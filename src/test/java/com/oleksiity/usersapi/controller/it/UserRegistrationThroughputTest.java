@@ -0,0 +1,57 @@
+package com.oleksiity.usersapi.controller.it;
+
+import com.oleksiity.usersapi.controller.payload.CreateUpdateUserPayload;
+import com.oleksiity.usersapi.dto.UserBatchResultDto;
+import com.oleksiity.usersapi.service.UserService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Run with: mvn test -Dtest=UserRegistrationThroughputTest -Dbenchmark=true
+@SpringBootTest
+@Slf4j
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class UserRegistrationThroughputTest {
+
+    private static final int USERS_COUNT = 5_000;
+
+    @Autowired
+    private UserService userService;
+
+    @Test
+    void compareOneByOneAndBatchRegistration() {
+        var oneByOne = generatePayloads("single");
+        var batch = generatePayloads("batch");
+
+        var oneByOneStart = System.nanoTime();
+        oneByOne.forEach(userService::registerUser);
+        var oneByOneNanos = System.nanoTime() - oneByOneStart;
+
+        var batchStart = System.nanoTime();
+        var results = userService.registerUsers(batch);
+        var batchNanos = System.nanoTime() - batchStart;
+
+        log.info("One by one registration: {} users/s", throughput(oneByOneNanos));
+        log.info("Batch registration: {} users/s", throughput(batchNanos));
+        assertThat(results).allMatch(result -> result.getStatus() == UserBatchResultDto.Status.CREATED);
+    }
+
+    private static List<CreateUpdateUserPayload> generatePayloads(String prefix) {
+        return IntStream.range(0, USERS_COUNT)
+                .mapToObj(i -> new CreateUpdateUserPayload(prefix + i + "@bench.com", "First" + i, "Last" + i,
+                        LocalDate.of(1980, 1, 1).plusDays(i % 3650), "Address " + i, null))
+                .toList();
+    }
+
+    private static long throughput(long nanos) {
+        return USERS_COUNT * 1_000_000_000L / nanos;
+    }
+}
@@ -0,0 +1,63 @@
+package com.oleksiity.usersapi.controller.payload;
+
+import com.oleksiity.usersapi.validation.AgeLimitValidator;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserFilterTest {
+
+    @Test
+    @DisplayName("Age bounds select exactly the birth dates AgeLimitValidator accepts for that age")
+    public void shouldTranslateAgesLikeAgeLimitValidator() {
+        var today = LocalDate.now();
+        var filter = new UserFilter(null, null, 30, 30, null, null, null);
+        var from = filter.birthDateFrom(today);
+        var to = filter.birthDateTo(today);
+
+        for (var birthDate = today.minusYears(32); birthDate.isBefore(today.minusYears(29));
+             birthDate = birthDate.plusDays(1)) {
+            var inRange = !birthDate.isBefore(from) && !birthDate.isAfter(to);
+            assertThat(inRange)
+                    .as("born %s", birthDate)
+                    .isEqualTo(isAtLeast(30, birthDate) && !isAtLeast(31, birthDate));
+        }
+    }
+
+    @Test
+    @DisplayName("Age bounds on a leap day")
+    public void shouldTranslateAgesOnLeapDay() {
+        var today = LocalDate.of(2024, 2, 29);
+        var filter = new UserFilter(null, null, 18, 18, null, null, null);
+
+        assertThat(filter.birthDateFrom(today)).isEqualTo(LocalDate.of(2005, 3, 1));
+        assertThat(filter.birthDateTo(today)).isEqualTo(LocalDate.of(2006, 2, 28));
+    }
+
+    @Test
+    @DisplayName("Explicit dates and ages narrow down to the tighter bound, a single bound stays open-ended")
+    public void shouldKeepTighterBound() {
+        var today = LocalDate.of(2024, 6, 15);
+
+        assertThat(new UserFilter(LocalDate.of(1960, 1, 1), null, null, null, null, null, null).birthDateTo(today))
+                .isNull();
+        assertThat(new UserFilter(LocalDate.of(1960, 1, 1), null, null, 100, null, null, null).birthDateFrom(today))
+                .isEqualTo(LocalDate.of(1960, 1, 1));
+        assertThat(new UserFilter(LocalDate.of(1960, 1, 1), null, null, 40, null, null, null).birthDateFrom(today))
+                .isEqualTo(LocalDate.of(1983, 6, 16));
+        assertThat(new UserFilter(null, LocalDate.of(2010, 1, 1), 18, null, null, null, null).birthDateTo(today))
+                .isEqualTo(LocalDate.of(2006, 6, 15));
+        assertThat(UserFilter.NONE.isEmpty()).isTrue();
+        assertThat(new UserFilter(null, null, null, null, null, false, null).isEmpty()).isFalse();
+    }
+
+    private static boolean isAtLeast(int age, LocalDate birthDate) {
+        var validator = new AgeLimitValidator();
+        ReflectionTestUtils.setField(validator, "minimumAge", age);
+        return validator.isValid(birthDate, null);
+    }
+}
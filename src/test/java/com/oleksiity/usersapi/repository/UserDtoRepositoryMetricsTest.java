@@ -0,0 +1,52 @@
+package com.oleksiity.usersapi.repository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+@Sql("/sql/test-users.sql")
+class UserDtoRepositoryMetricsTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    @DisplayName("The count query behind a page of users is recorded in the statement timer")
+    public void shouldTimePageCount() {
+        var before = countTimer();
+
+        // A full first page leaves the total unknown, so the count query runs
+        var page = userRepository.findAllDtoBy(PageRequest.of(0, 2));
+
+        assertThat(page.getTotalElements()).isEqualTo(3);
+        assertThat(countTimer()).isEqualTo(before + 1);
+    }
+
+    @Test
+    @DisplayName("A first page shorter than the page size is counted without a count query")
+    public void shouldNotTimeCountOfShortFirstPage() {
+        var before = countTimer();
+
+        var page = userRepository.findAllDto(null, PageRequest.of(0, 10));
+
+        assertThat(page.getTotalElements()).isEqualTo(3);
+        assertThat(countTimer()).isEqualTo(before);
+    }
+
+    private long countTimer() {
+        var timer = meterRegistry.find(UserJdbcRepository.STATEMENT_TIMER).tag("statement", "count").timer();
+        return timer == null ? 0 : timer.count();
+    }
+}
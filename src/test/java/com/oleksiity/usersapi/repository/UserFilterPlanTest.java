@@ -0,0 +1,135 @@
+package com.oleksiity.usersapi.repository;
+
+import com.oleksiity.usersapi.controller.payload.UserFilter;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that every compiled filter is served by an index. Sequential scans are disabled for the transaction,
+ * so the planner falls back to one only when no index matches the predicate, and the filtered columns have to
+ * show up in an index condition rather than in a filter applied to every row. The one exception is hasPhone=true,
+ * which is checked to be filtered in the order of the page instead.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.oleksiity.usersapi.repository.UserFilterPlanTest$LastStatement")
+@Transactional
+class UserFilterPlanTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 6, 15);
+
+    private static final Pattern PARAMETER = Pattern.compile("\\?");
+
+    private static final Pageable FIRST_PAGE_BY_ID = PageRequest.of(0, 20, Sort.by("id"));
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    static Stream<Arguments> filters() {
+        return Stream.of(
+                Arguments.of(new UserFilter(LocalDate.of(1960, 1, 1), null, null, null, null, null, null),
+                        List.of("birth_date")),
+                Arguments.of(new UserFilter(null, LocalDate.of(1960, 1, 1), null, null, null, null, null),
+                        List.of("birth_date")),
+                Arguments.of(new UserFilter(null, null, 30, 40, null, null, null),
+                        List.of("birth_date")),
+                Arguments.of(new UserFilter(LocalDate.of(1960, 1, 1), null, 30, null, null, null, null),
+                        List.of("birth_date")),
+                Arguments.of(new UserFilter(null, null, null, null, "Wen", null, null),
+                        List.of("first_name", "last_name")),
+                Arguments.of(new UserFilter(null, null, null, null, null, null, "gunners.com"),
+                        List.of("email")));
+    }
+
+    @ParameterizedTest
+    @MethodSource("filters")
+    public void shouldServeFilterByIndex(UserFilter filter, List<String> indexedColumns) {
+        jdbcTemplate.execute("set local enable_seqscan = off");
+        var plan = plan(filter, Pageable.unpaged());
+        var indexConditions = plan.lines()
+                .map(String::strip)
+                .filter(line -> line.startsWith("Index Cond:") || line.startsWith("Recheck Cond:"))
+                .toList();
+
+        assertThat(plan).as(plan).doesNotContain("Seq Scan");
+        for (var column : indexedColumns) {
+            assertThat(indexConditions).as(plan).anyMatch(condition -> condition.contains(column));
+        }
+    }
+
+    @Test
+    @DisplayName("Users without a phone are read from the partial index in id order")
+    public void shouldServeUsersWithoutPhoneByPartialIndex() {
+        jdbcTemplate.execute("set local enable_seqscan = off");
+        var plan = plan(new UserFilter(null, null, null, null, null, false, null), FIRST_PAGE_BY_ID);
+
+        assertThat(plan).as(plan).contains("user_without_phone_id_idx").doesNotContain("Seq Scan", "Sort");
+    }
+
+    @Test
+    @DisplayName("Users with a phone are the exception: no index narrows them, they are filtered in id order")
+    public void shouldFilterUsersWithPhoneInIdOrder() {
+        var plan = plan(new UserFilter(null, null, null, null, null, true, null), FIRST_PAGE_BY_ID);
+
+        assertThat(plan).as(plan).contains("user_pkey", "Filter:", "phone_number IS NOT NULL")
+                .doesNotContain("Sort");
+    }
+
+    // explain (generic_plan) would take the numbered parameters from the protocol, so the statement is prepared
+    // on the server and its generic plan explained for null arguments instead
+    private String plan(UserFilter filter, Pageable pageable) {
+        userRepository.findSliceDto(UserSpecifications.matching(filter, TODAY), pageable);
+        var parameters = (int) PARAMETER.matcher(LastStatement.sql).results().count();
+        jdbcTemplate.execute("set local plan_cache_mode = force_generic_plan");
+        jdbcTemplate.execute("prepare filtered as " + numberParameters(LastStatement.sql));
+        var plan = String.join("\n", jdbcTemplate.queryForList("explain execute filtered"
+                + (parameters == 0 ? "" : "(" + String.join(", ", Collections.nCopies(parameters, "null")) + ")"),
+                String.class));
+        jdbcTemplate.execute("deallocate filtered");
+        return plan;
+    }
+
+    // Prepared statements take numbered parameters instead of the JDBC placeholders
+    private static String numberParameters(String sql) {
+        var matcher = PARAMETER.matcher(sql);
+        var numbered = new StringBuilder();
+        var parameter = 0;
+        while (matcher.find()) {
+            matcher.appendReplacement(numbered, Matcher.quoteReplacement("$" + ++parameter));
+        }
+        return matcher.appendTail(numbered).toString();
+    }
+
+    public static class LastStatement implements StatementInspector {
+
+        static volatile String sql;
+
+        @Override
+        public String inspect(String sql) {
+            LastStatement.sql = sql;
+            return sql;
+        }
+    }
+}
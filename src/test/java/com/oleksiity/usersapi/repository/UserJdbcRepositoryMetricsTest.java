@@ -0,0 +1,30 @@
+package com.oleksiity.usersapi.repository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class UserJdbcRepositoryMetricsTest {
+
+    @Test
+    @DisplayName("Every statement is recorded in a timer tagged with its repository method")
+    public void shouldTimeStatements() {
+        var meterRegistry = new SimpleMeterRegistry();
+        var jdbcTemplate = mock(JdbcTemplate.class);
+        var userJdbcRepository = new UserJdbcRepository(jdbcTemplate, meterRegistry);
+
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class))).thenReturn(42L);
+
+        assertThat(userJdbcRepository.findTableVersion()).isEqualTo(42L);
+        assertThat(userJdbcRepository.findTableVersion()).isEqualTo(42L);
+        assertThat(meterRegistry.get(UserJdbcRepository.STATEMENT_TIMER)
+                .tag("statement", "findTableVersion").timer().count()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,39 @@
+package com.oleksiity.usersapi.repository;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that the search reads its matches from the trigram index in distance order, so a query contained in
+ * nearly every row, like a common email domain, stops after one page instead of sorting every match.
+ */
+@SpringBootTest
+@Transactional
+class UserSearchPlanTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @ParameterizedTest
+    @ValueSource(strings = {"com", "ramos", "street 4f"})
+    public void shouldReadSearchPageInIndexOrder(String query) {
+        // The test table holds a handful of rows, where scanning them all and sorting is cheaper than any order
+        jdbcTemplate.execute("set local enable_seqscan = off");
+        jdbcTemplate.execute("set local enable_bitmapscan = off");
+
+        var plan = String.join("\n", jdbcTemplate.queryForList("explain " + UserJdbcRepository.SEARCH, String.class,
+                "%" + UserSpecifications.escapeLike(query) + "%", query, 11, 0));
+
+        assertThat(plan).as(plan).contains("Index Scan using user_search_text_trgm_idx");
+        assertThat(plan.lines().map(String::strip))
+                .as(plan)
+                .anyMatch(line -> line.startsWith("Order By:"))
+                .noneMatch(line -> line.startsWith("Sort") || line.startsWith("->  Sort"));
+    }
+}
@@ -0,0 +1,163 @@
+package com.oleksiity.usersapi.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.oleksiity.usersapi.UserDataHelper;
+import com.oleksiity.usersapi.controller.payload.CreateUpdateUserPayload;
+import com.oleksiity.usersapi.dto.UserBatchResultDto;
+import com.oleksiity.usersapi.exception.InvalidImportException;
+import com.oleksiity.usersapi.mapper.UserMapper;
+import com.oleksiity.usersapi.repository.UserImportRepository;
+import com.oleksiity.usersapi.service.UserImportService;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.MessageSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserImportServiceImplTest {
+
+    @InjectMocks
+    private UserImportServiceImpl userImportService;
+
+    @Mock
+    private UserImportRepository userImportRepository;
+
+    @Mock
+    private UserMapper userMapper;
+
+    @Mock
+    private Validator validator;
+
+    @Spy
+    private ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+
+    @Mock
+    private MessageSource messageSource;
+
+    @Test
+    @DisplayName("Successful case of CSV import with invalid and conflicting rows reported")
+    @SuppressWarnings("unchecked")
+    public void shouldImportUsersFromCsvAndReportRejectedRows() {
+        ReflectionTestUtils.setField(userImportService, "maxReportedRejections", 10);
+        var csv = """
+                email,firstName,lastName,birthDate,address,phoneNumber
+                sergio@madrid.com,Sergio,Ramos,1986-03-30,"Av. de Concha Espina, 1",0445523499
+                cantona@machester.com,Eric,Cantona,2020-05-24,,0994562398
+                awenger@gunners.com,Arsen,Wenger,1949-10-22,,
+                """;
+        ConstraintViolation<CreateUpdateUserPayload> violation = mock(ConstraintViolation.class);
+        List<UserImportRepository.StagedUser> staged = new ArrayList<>();
+
+        when(violation.getMessage()).thenReturn("The user does not meet the age restrictions");
+        when(validator.validate(any(CreateUpdateUserPayload.class))).thenAnswer(invocation ->
+                "Eric".equals(((CreateUpdateUserPayload) invocation.getArgument(0)).firstName())
+                        ? Set.of(violation) : Set.of());
+        when(userMapper.fromPayload(any(CreateUpdateUserPayload.class))).thenAnswer(invocation -> {
+            CreateUpdateUserPayload payload = invocation.getArgument(0);
+            return "Sergio".equals(payload.firstName())
+                    ? UserDataHelper.getSergioRamos() : UserDataHelper.getArsenWenger();
+        });
+        when(userImportRepository.copyToStaging(any(Iterator.class))).thenAnswer(invocation -> {
+            Iterator<UserImportRepository.StagedUser> users = invocation.getArgument(0);
+            users.forEachRemaining(staged::add);
+            return (long) staged.size();
+        });
+        doAnswer(invocation -> {
+            Consumer<UserImportRepository.Rejection> conflicts = invocation.getArgument(0);
+            conflicts.accept(new UserImportRepository.Rejection(2, "awenger@gunners.com", true));
+            return null;
+        }).when(userImportRepository).mergeStaging(any(Consumer.class));
+
+        var result = userImportService.importUsers(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), UserImportService.Format.CSV);
+
+        assertThat(staged).extracting(UserImportRepository.StagedUser::index).containsExactly(0, 2);
+        assertThat(result.getReceived()).isEqualTo(3);
+        assertThat(result.getImported()).isEqualTo(1);
+        assertThat(result.getRejected()).isEqualTo(2);
+        assertThat(result.getRejections()).extracting(UserBatchResultDto::getIndex, UserBatchResultDto::getStatus)
+                .containsExactly(
+                        tuple(1, UserBatchResultDto.Status.INVALID),
+                        tuple(2, UserBatchResultDto.Status.CONFLICT));
+        assertThat(result.getRejections().get(0).getErrors())
+                .containsExactly("The user does not meet the age restrictions");
+        verify(userImportRepository, times(1)).createStagingTable();
+        verify(userImportRepository, times(1)).deleteNotInsertable(any(Consumer.class));
+    }
+
+    @Test
+    @DisplayName("Successful case of CSV import with rows whose values can not be parsed reported")
+    @SuppressWarnings("unchecked")
+    public void shouldRejectRowsWithUnparsableValuesAndImportTheRest() {
+        ReflectionTestUtils.setField(userImportService, "maxReportedRejections", 10);
+        var csv = """
+                email,firstName,lastName,birthDate,address,phoneNumber
+                sergio@madrid.com,Sergio,Ramos,30.03.1986,"Av. de Concha Espina, 1",0445523499
+                awenger@gunners.com,Arsen,Wenger,1949-10-22,,
+                """;
+        List<UserImportRepository.StagedUser> staged = new ArrayList<>();
+
+        when(messageSource.getMessage(eq("users-api.users.errors.import_value_not_valid"), any(Object[].class), any()))
+                .thenAnswer(invocation -> "The value of '" + ((Object[]) invocation.getArgument(1))[0]
+                        + "' can not be parsed");
+        when(validator.validate(any(CreateUpdateUserPayload.class))).thenReturn(Set.of());
+        when(userMapper.fromPayload(any(CreateUpdateUserPayload.class))).thenReturn(UserDataHelper.getArsenWenger());
+        when(userImportRepository.copyToStaging(any(Iterator.class))).thenAnswer(invocation -> {
+            Iterator<UserImportRepository.StagedUser> users = invocation.getArgument(0);
+            users.forEachRemaining(staged::add);
+            return (long) staged.size();
+        });
+
+        var result = userImportService.importUsers(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), UserImportService.Format.CSV);
+
+        assertThat(staged).extracting(UserImportRepository.StagedUser::index).containsExactly(1);
+        assertThat(result.getReceived()).isEqualTo(2);
+        assertThat(result.getImported()).isEqualTo(1);
+        assertThat(result.getRejected()).isEqualTo(1);
+        assertThat(result.getRejections()).extracting(UserBatchResultDto::getIndex, UserBatchResultDto::getStatus)
+                .containsExactly(tuple(0, UserBatchResultDto.Status.INVALID));
+        assertThat(result.getRejections().get(0).getErrors())
+                .containsExactly("The value of 'birthDate' can not be parsed");
+    }
+
+    @Test
+    @DisplayName("Unsuccessful case of NDJSON import with malformed body")
+    @SuppressWarnings("unchecked")
+    public void shouldThrowAnExceptionWhenImportBodyIsMalformed() {
+        var ndjson = "{\"email\":\"sergio@madrid.com\",\"firstName\":\"Sergio\"\n{\"email\":";
+
+        when(userImportRepository.copyToStaging(any(Iterator.class))).thenAnswer(invocation -> {
+            Iterator<UserImportRepository.StagedUser> users = invocation.getArgument(0);
+            users.forEachRemaining(user -> {
+            });
+            return 0L;
+        });
+
+        assertThrows(InvalidImportException.class, () -> userImportService.importUsers(
+                new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)), UserImportService.Format.NDJSON));
+    }
+}
@@ -0,0 +1,142 @@
+package com.oleksiity.usersapi.service.impl;
+
+import com.oleksiity.usersapi.UserDataHelper;
+import com.oleksiity.usersapi.config.CacheConfig;
+import com.oleksiity.usersapi.config.ReplicaRoutingDataSource;
+import com.oleksiity.usersapi.exception.UserNotFoundException;
+import com.oleksiity.usersapi.mapper.UserMapper;
+import com.oleksiity.usersapi.repository.UserJdbcRepository;
+import com.oleksiity.usersapi.repository.UserRepository;
+import com.oleksiity.usersapi.service.UserService;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@SpringJUnitConfig
+class UserServiceImplCacheTest {
+
+    @Autowired
+    private UserService userService;
+
+    @MockBean
+    private UserRepository userRepository;
+
+    @MockBean
+    private UserJdbcRepository userJdbcRepository;
+
+    @MockBean
+    private UserMapper userMapper;
+
+    @MockBean
+    private Validator validator;
+
+    @MockBean
+    private EntityManager entityManager;
+
+    @Test
+    @DisplayName("Repeated find user by id is served from the cache")
+    public void shouldLoadUserOnceWhenFindUserByIdRepeatedly() {
+        when(userRepository.findById(eq(1L)))
+                .thenReturn(Optional.of(UserDataHelper.getSergioRamos()));
+
+        var first = userService.findUserById(1L);
+        var second = userService.findUserById(1L);
+
+        assertThat(second).isEqualTo(first);
+        verify(userRepository, times(1)).findById(eq(1L));
+    }
+
+    @Test
+    @DisplayName("Replaced user is refreshed in the cache")
+    public void shouldRefreshCachedUserWhenReplaceUser() {
+        var replacement = UserDataHelper.getEricCantona();
+        when(userRepository.findById(eq(2L)))
+                .thenReturn(Optional.of(UserDataHelper.getArsenWenger()));
+
+        userService.findUserById(2L);
+        userService.replaceUser(UserDataHelper.convertUserToCreateUpdateUserPayload(replacement), 2L, null);
+        var cachedUser = userService.findUserById(2L);
+
+        assertThat(cachedUser.getEmail()).isEqualTo(replacement.getEmail());
+        verify(userRepository, times(2)).findById(eq(2L));
+    }
+
+    @Test
+    @DisplayName("Deleted user is evicted from the cache")
+    public void shouldEvictCachedUserWhenDeleteUser() {
+        when(userRepository.findById(eq(7L)))
+                .thenReturn(Optional.of(UserDataHelper.getEricCantona()));
+        when(userRepository.deleteUserById(eq(7L))).thenReturn(1);
+
+        userService.findUserById(7L);
+        userService.deleteUserById(7L);
+        userService.findUserById(7L);
+
+        verify(userRepository, times(2)).findById(eq(7L));
+    }
+
+    @Test
+    @DisplayName("Deleted user is not put back into the cache by a read from a lagging replica")
+    public void shouldNotCacheDeletedUserWhenReplicaLags() {
+        // The replica still has the user, the primary no longer has it
+        when(userRepository.findById(eq(8L))).thenAnswer(invocation -> ReplicaRoutingDataSource.isPinnedToPrimary()
+                ? Optional.empty()
+                : Optional.of(UserDataHelper.getEricCantona()));
+        when(userRepository.deleteUserById(eq(8L))).thenReturn(1);
+
+        userService.deleteUserById(8L);
+        assertThrows(UserNotFoundException.class, () -> userService.findUserById(8L));
+        ReplicaRoutingDataSource.pinToPrimary();
+        try {
+            assertThrows(UserNotFoundException.class, () -> userService.findUserById(8L));
+        } finally {
+            ReplicaRoutingDataSource.unpin();
+        }
+
+        assertThat(ReplicaRoutingDataSource.isPinnedToPrimary()).isFalse();
+    }
+
+    @Test
+    @DisplayName("A client pinned to the primary by its own write skips the cached user")
+    public void shouldSkipCacheWhenPinnedToPrimary() {
+        when(userRepository.findById(eq(9L)))
+                .thenReturn(Optional.of(UserDataHelper.getArsenWenger()));
+
+        userService.findUserById(9L);
+        ReplicaRoutingDataSource.pinToPrimary();
+        try {
+            userService.findUserById(9L);
+        } finally {
+            ReplicaRoutingDataSource.unpin();
+        }
+        userService.findUserById(9L);
+
+        verify(userRepository, times(2)).findById(eq(9L));
+    }
+
+    @Configuration
+    @Import({CacheConfig.class, UserServiceImpl.class})
+    static class Config {
+
+        @Bean
+        public CacheManager cacheManager() {
+            return new CaffeineCacheManager(CacheConfig.USERS_CACHE, CacheConfig.USER_RESPONSES_CACHE);
+        }
+    }
+}
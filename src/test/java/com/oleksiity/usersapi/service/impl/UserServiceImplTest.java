@@ -2,28 +2,60 @@ package com.oleksiity.usersapi.service.impl;
 
 import com.oleksiity.usersapi.UserDataHelper;
 import com.oleksiity.usersapi.controller.payload.CreateUpdateUserPayload;
+import com.oleksiity.usersapi.controller.payload.UserCursor;
+import com.oleksiity.usersapi.controller.payload.UserFilter;
 import com.oleksiity.usersapi.controller.payload.UserSortField;
+import com.oleksiity.usersapi.dto.UpsertedUser;
+import com.oleksiity.usersapi.dto.UserBatchResultDto;
+import com.oleksiity.usersapi.dto.UserDto;
+import com.oleksiity.usersapi.entity.User;
+import com.oleksiity.usersapi.exception.EmailMismatchException;
 import com.oleksiity.usersapi.exception.InvalidDateRangeException;
+import com.oleksiity.usersapi.exception.InvalidFilterException;
+import com.oleksiity.usersapi.exception.InvalidSearchQueryException;
+import com.oleksiity.usersapi.exception.PreconditionFailedException;
 import com.oleksiity.usersapi.mapper.UserMapper;
+import com.oleksiity.usersapi.exception.RequestLimitExceededException;
+import com.oleksiity.usersapi.exception.UserConflictException;
+import com.oleksiity.usersapi.repository.UserJdbcRepository;
 import com.oleksiity.usersapi.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -35,9 +67,18 @@ class UserServiceImplTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private UserJdbcRepository userJdbcRepository;
+
     @Mock
     private UserMapper userMapper;
 
+    @Mock
+    private Validator validator;
+
+    @Mock
+    private EntityManager entityManager;
+
     @Test
     @DisplayName("Successful case of user registration")
     public void shouldSuccessfullyRegisterUser() {
@@ -55,14 +96,164 @@ class UserServiceImplTest {
         verify(userRepository,times(1)).save(eq(UserDataHelper.getArsenWenger()));
     }
 
+    @Test
+    @DisplayName("Unsuccessful case of user registration with an email that is already taken")
+    public void shouldThrowAnExceptionWhenRegisterConflictingUser() {
+        var userPayload = UserDataHelper.convertUserToCreateUpdateUserPayload(UserDataHelper.getArsenWenger());
+
+        when(userMapper.fromPayload(eq(userPayload)))
+                .thenReturn(UserDataHelper.getArsenWenger());
+        when(userRepository.save(any(User.class)))
+                .thenThrow(new DuplicateKeyException("duplicate key value violates unique constraint"));
+
+        var exception = assertThrows(UserConflictException.class, () -> userService.registerUser(userPayload));
+
+        assertThat(exception.getStackTrace()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Integrity violations other than a taken email or phone number are not reported as a conflict")
+    public void shouldNotReportConflictWhenRegisterUserViolatesOtherConstraint() {
+        var userPayload = UserDataHelper.convertUserToCreateUpdateUserPayload(UserDataHelper.getArsenWenger());
+
+        when(userMapper.fromPayload(eq(userPayload)))
+                .thenReturn(UserDataHelper.getArsenWenger());
+        when(userRepository.save(any(User.class)))
+                .thenThrow(new DataIntegrityViolationException("value too long for type character varying(255)"));
+
+        assertThrows(DataIntegrityViolationException.class, () -> userService.registerUser(userPayload));
+    }
+
+    @Test
+    @DisplayName("Batch registration reports created, invalid and conflicting users per item")
+    @SuppressWarnings("unchecked")
+    public void shouldRegisterUsersInBatchAndReportResultPerItem() {
+        ReflectionTestUtils.setField(userService, "batchChunkSize", 2);
+        ReflectionTestUtils.setField(userService, "batchMaxSize", 10);
+        var sergio = UserDataHelper.convertUserToCreateUpdateUserPayload(UserDataHelper.getSergioRamos());
+        var arsen = UserDataHelper.convertUserToCreateUpdateUserPayload(UserDataHelper.getArsenWenger());
+        var eric = UserDataHelper.convertUserToCreateUpdateUserPayload(UserDataHelper.getEricCantona());
+        ConstraintViolation<CreateUpdateUserPayload> violation = mock(ConstraintViolation.class);
+
+        when(violation.getMessage()).thenReturn("The user does not meet the age restrictions");
+        when(validator.validate(any(CreateUpdateUserPayload.class)))
+                .thenAnswer(invocation -> eric.equals(invocation.getArgument(0)) ? Set.of(violation) : Set.of());
+        when(userMapper.fromPayload(eq(sergio))).thenReturn(UserDataHelper.getSergioRamos());
+        when(userMapper.fromPayload(eq(arsen))).thenReturn(UserDataHelper.getArsenWenger());
+        when(userJdbcRepository.insertAllIgnoringConflicts(anyList()))
+                .thenReturn(Map.of(sergio.email(), 11L));
+
+        var results = userService.registerUsers(List.of(sergio, eric, arsen, sergio));
+
+        assertThat(results).extracting(UserBatchResultDto::getStatus).containsExactly(
+                UserBatchResultDto.Status.CREATED,
+                UserBatchResultDto.Status.INVALID,
+                UserBatchResultDto.Status.CONFLICT,
+                UserBatchResultDto.Status.CONFLICT);
+        assertThat(results.get(0).getId()).isEqualTo(11L);
+        assertThat(results.get(1).getErrors()).containsExactly("The user does not meet the age restrictions");
+        verify(userJdbcRepository, times(1)).insertAllIgnoringConflicts(anyList());
+    }
+
+    @Test
+    @DisplayName("Unsuccessful case of batch registration with too many users")
+    public void shouldThrowAnExceptionWhenBatchIsTooLarge() {
+        ReflectionTestUtils.setField(userService, "batchMaxSize", 1);
+        var userPayload = UserDataHelper.convertUserToCreateUpdateUserPayload(UserDataHelper.getArsenWenger());
+
+        assertThrows(
+                RequestLimitExceededException.class, () -> userService.registerUsers(List.of(userPayload, userPayload))
+        );
+    }
+
+    @Test
+    @DisplayName("Upsert by email reports whether the user has been created or replaced")
+    public void shouldUpsertUserByEmail() {
+        var arsen = UserDataHelper.getArsenWenger();
+        var userPayload = UserDataHelper.convertUserToCreateUpdateUserPayload(arsen);
+
+        when(userMapper.fromPayload(eq(userPayload))).thenReturn(arsen);
+        when(userJdbcRepository.upsertAllByEmail(anyList()))
+                .thenReturn(Map.of(arsen.getEmail(), new UpsertedUser(arsen, true)))
+                .thenReturn(Map.of(arsen.getEmail(), new UpsertedUser(arsen, false)));
+
+        assertThat(userService.upsertUserByEmail("AWenger@Gunners.com", userPayload).created()).isTrue();
+        var replaced = userService.upsertUserByEmail(arsen.getEmail(), userPayload);
+
+        assertThat(replaced.created()).isFalse();
+        assertThat(replaced.user().getId()).isEqualTo(2L);
+    }
+
+    @Test
+    @DisplayName("Unsuccessful cases of upsert by email with another email in the body or a taken phone number")
+    public void shouldThrowAnExceptionWhenUpsertByEmailIsRejected() {
+        var sergio = UserDataHelper.getSergioRamos();
+        var userPayload = UserDataHelper.convertUserToCreateUpdateUserPayload(sergio);
+
+        assertThrows(EmailMismatchException.class,
+                () -> userService.upsertUserByEmail("awenger@gunners.com", userPayload));
+
+        when(userMapper.fromPayload(eq(userPayload))).thenReturn(sergio);
+        when(userJdbcRepository.upsertAllByEmail(anyList())).thenThrow(new DuplicateKeyException("phone_number"));
+
+        assertThrows(UserConflictException.class, () -> userService.upsertUserByEmail(sergio.getEmail(), userPayload));
+        verify(userJdbcRepository, times(1)).upsertAllByEmail(anyList());
+    }
+
+    @Test
+    @DisplayName("Batch upsert reports created, updated, invalid and conflicting users per item")
+    @SuppressWarnings("unchecked")
+    public void shouldUpsertUsersInBatchAndReportResultPerItem() {
+        ReflectionTestUtils.setField(userService, "batchChunkSize", 3);
+        ReflectionTestUtils.setField(userService, "batchMaxSize", 10);
+        var sergio = UserDataHelper.getSergioRamos();
+        var arsen = UserDataHelper.getArsenWenger();
+        var eric = UserDataHelper.getEricCantona();
+        var sergioPayload = UserDataHelper.convertUserToCreateUpdateUserPayload(sergio);
+        var arsenPayload = UserDataHelper.convertUserToCreateUpdateUserPayload(arsen);
+        var ericPayload = UserDataHelper.convertUserToCreateUpdateUserPayload(eric);
+        var invalidPayload = new CreateUpdateUserPayload("invalid", "Too", "Young", LocalDate.now(), null, null);
+        ConstraintViolation<CreateUpdateUserPayload> violation = mock(ConstraintViolation.class);
+
+        when(violation.getMessage()).thenReturn("The user does not meet the age restrictions");
+        when(validator.validate(any(CreateUpdateUserPayload.class)))
+                .thenAnswer(invocation -> invalidPayload.equals(invocation.getArgument(0)) ? Set.of(violation) : Set.of());
+        when(userMapper.fromPayload(eq(sergioPayload))).thenReturn(sergio);
+        when(userMapper.fromPayload(eq(arsenPayload))).thenReturn(arsen);
+        when(userMapper.fromPayload(eq(ericPayload))).thenReturn(eric);
+        // The chunk is rejected as a whole because of Eric's phone number, so every user is retried alone
+        when(userJdbcRepository.upsertAllByEmail(anyList())).thenAnswer(invocation -> {
+            List<User> users = invocation.getArgument(0);
+            if (users.contains(eric)) {
+                throw new DuplicateKeyException("phone_number");
+            }
+            return Map.of(sergio.getEmail(), new UpsertedUser(sergio, false),
+                    arsen.getEmail(), new UpsertedUser(arsen, true));
+        });
+
+        var results = userService.upsertUsersByEmail(
+                List.of(sergioPayload, invalidPayload, arsenPayload, ericPayload, sergioPayload));
+
+        assertThat(results).extracting(UserBatchResultDto::getStatus).containsExactly(
+                UserBatchResultDto.Status.UPDATED,
+                UserBatchResultDto.Status.INVALID,
+                UserBatchResultDto.Status.CREATED,
+                UserBatchResultDto.Status.CONFLICT,
+                UserBatchResultDto.Status.CONFLICT);
+        assertThat(results).extracting(UserBatchResultDto::getId).containsExactly(1L, null, 2L, null, null);
+        verify(userJdbcRepository, times(4)).upsertAllByEmail(anyList());
+    }
+
     @Test
     @DisplayName("Successful case of get all users")
     public void shouldSuccessfullyGetAllUsers() {
         var pageable = PageRequest.of(1, 10, Sort.Direction.DESC, UserSortField.ID.getDatabaseFieldName());
-        var userPage = new PageImpl<>(List.of(UserDataHelper.getSergioRamos(),UserDataHelper.getArsenWenger(),UserDataHelper.getEricCantona()),
-                PageRequest.of(0, 10), 1);
+        var users = Stream.of(UserDataHelper.getSergioRamos(), UserDataHelper.getArsenWenger(), UserDataHelper.getEricCantona())
+                .map(UserDataHelper::convertUserToUserDto)
+                .toList();
+        var userPage = new PageImpl<>(users, PageRequest.of(0, 10), 1);
 
-        when(userRepository.findAll(eq(pageable)))
+        when(userRepository.findAllDtoBy(eq(pageable)))
                 .thenReturn(userPage);
 
         var usersResult = userService.getAllUsers(pageable);
@@ -70,12 +261,162 @@ class UserServiceImplTest {
         assertThat(usersResult).isNotNull();
         assertThat(usersResult.getTotalElements()).isEqualTo(3);
         assertThat(usersResult.getTotalPages()).isEqualTo(1);
-        assertThat(usersResult.getContent().size()).isEqualTo(3);
-        assertThat(usersResult.getContent().get(0)).isEqualTo(UserDataHelper.getSergioRamos());
-        assertThat(usersResult.getContent().get(1)).isEqualTo(UserDataHelper.getArsenWenger());
-        assertThat(usersResult.getContent().get(2)).isEqualTo(UserDataHelper.getEricCantona());
-        verify(userRepository, times(1)).findAll(eq(pageable));
+        assertThat(usersResult.getContent()).containsExactlyElementsOf(users);
+        verify(userRepository, times(1)).findAllDtoBy(eq(pageable));
+        verify(userRepository, times(0)).findAll(any(Pageable.class));
+        verifyNoInteractions(userMapper);
+
+    }
+
+    @Test
+    @DisplayName("Successful case of users search with the next page detected by one extra row")
+    public void shouldSearchUsersAndDetectNextPage() {
+        var pageable = PageRequest.of(0, 1);
+        var users = List.of(UserDataHelper.convertUserToUserDto(UserDataHelper.getSergioRamos()),
+                UserDataHelper.convertUserToUserDto(UserDataHelper.getEricCantona()));
+
+        when(userJdbcRepository.search(eq("madrid"), eq(2), eq(0L)))
+                .thenReturn(users);
+
+        var usersResult = userService.searchUsers("  madrid ", pageable);
+
+        assertThat(usersResult.getContent()).containsExactly(users.get(0));
+        assertThat(usersResult.hasNext()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Unsuccessful case of users search with a query shorter than a trigram")
+    public void shouldThrowAnExceptionWhenSearchQueryIsTooShort() {
+        assertThrows(
+                InvalidSearchQueryException.class, () -> userService.searchUsers(" ab ", PageRequest.of(0, 10))
+        );
+        verifyNoInteractions(userJdbcRepository);
+    }
+
+    @Test
+    @DisplayName("Successful case of users export with detaching every exported user")
+    public void shouldExportUsersAndDetachThem() {
+        var sergio = UserDataHelper.getSergioRamos();
+        var eric = UserDataHelper.getEricCantona();
+        var startDate = LocalDate.of(1960, 1, 1);
+        var endDate = LocalDate.of(1990, 1, 1);
+        List<Object> exported = new ArrayList<>();
+
+        when(userRepository.streamAll(notNull()))
+                .thenReturn(Stream.of(sergio, eric));
+
+        userService.exportUsers(startDate, endDate, exported::add);
+
+        assertThat(exported).containsExactly(sergio, eric);
+        verify(entityManager, times(1)).detach(eq(sergio));
+        verify(entityManager, times(1)).detach(eq(eric));
+    }
+
+    @Test
+    @DisplayName("Users export with only a start date is filtered by it rather than exporting every user")
+    public void shouldExportUsersBornSinceStartDate() {
+        var startDate = LocalDate.of(1960, 1, 1);
+
+        when(userRepository.streamAll(notNull()))
+                .thenReturn(Stream.of(UserDataHelper.getSergioRamos()));
+
+        userService.exportUsers(startDate, null, user -> {
+        });
+
+        verify(userRepository, times(1)).streamAll(notNull());
+        verify(userRepository, times(0)).streamAll(isNull());
+    }
+
+    @Test
+    @DisplayName("Users export without dates exports every user")
+    public void shouldExportAllUsersWithoutDates() {
+        when(userRepository.streamAll(isNull()))
+                .thenReturn(Stream.empty());
+
+        userService.exportUsers(null, null, user -> {
+        });
+
+        verify(userRepository, times(1)).streamAll(isNull());
+    }
+
+    @Test
+    @DisplayName("Successful case of get users slice without totals")
+    public void shouldSuccessfullyGetUsersSlice() {
+        var pageable = PageRequest.of(0, 2, Sort.Direction.DESC, UserSortField.ID.getDatabaseFieldName());
+        var userSlice = new SliceImpl<>(List.of(UserDataHelper.convertUserToUserDto(UserDataHelper.getEricCantona()),
+                UserDataHelper.convertUserToUserDto(UserDataHelper.getArsenWenger())), pageable, true);
+
+        when(userRepository.findSliceDtoBy(eq(pageable)))
+                .thenReturn(userSlice);
+
+        var usersResult = userService.getAllUsersSlice(pageable);
+
+        assertThat(usersResult.getContent().size()).isEqualTo(2);
+        assertThat(usersResult.hasNext()).isTrue();
+        verify(userRepository, times(1)).findSliceDtoBy(eq(pageable));
+        verify(userRepository, times(0)).findAllDtoBy(eq(pageable));
+    }
+
+    @Test
+    @DisplayName("Unsuccessful case of get users slice by date range")
+    public void shouldThrowAnExceptionWhenTryToGetUsersSliceByInvalidDateRange() {
+        var pageable = PageRequest.of(0, 10);
+
+        assertThrows(
+                InvalidDateRangeException.class, () -> userService.getAllUsersSlice(pageable,
+                        new UserFilter(LocalDate.of(1945, 2, 1), LocalDate.of(1945, 1, 1), null, null, null, null, null))
+        );
+    }
+
+    @Test
+    @DisplayName("Unsuccessful case of get users by invalid filter")
+    public void shouldThrowAnExceptionWhenTryToGetUsersByInvalidFilter() {
+        var pageable = PageRequest.of(0, 10);
+
+        assertThrows(InvalidFilterException.class, () -> userService.getAllUsersSlice(pageable,
+                new UserFilter(null, null, 60, 30, null, null, null)));
+        assertThrows(InvalidFilterException.class, () -> userService.getAllUsers(pageable,
+                new UserFilter(null, null, -1, null, null, null, null)));
+        assertThrows(InvalidFilterException.class, () -> userService.getAllUsers(pageable,
+                new UserFilter(null, null, null, null, " ", null, null)));
+        assertThrows(InvalidFilterException.class, () -> userService.getAllUsers(pageable,
+                new UserFilter(null, null, null, null, " We ", null, null)));
+        assertThrows(InvalidFilterException.class, () -> userService.getAllUsers(
+                UserCursor.first(UserSortField.ID, Sort.Direction.DESC), 10,
+                new UserFilter(null, null, null, null, null, null, "")));
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    @DisplayName("Successful case of get users window by cursor")
+    @SuppressWarnings("unchecked")
+    public void shouldSuccessfullyGetUsersWindowByCursor() {
+        var cursor = UserCursor.after(UserDataHelper.getSergioRamos(), UserSortField.LAST_NAME, Sort.Direction.DESC);
+
+        when(userRepository.findBy(any(Specification.class), any()))
+                .thenReturn(List.of(UserDataHelper.getArsenWenger(), UserDataHelper.getEricCantona()));
+
+        var usersResult = userService.getAllUsers(cursor, 1);
+
+        assertThat(usersResult.content()).containsExactly(UserDataHelper.getArsenWenger());
+        assertThat(usersResult.hasNext()).isTrue();
+        assertThat(usersResult.hasPrevious()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Successful case of get users window before cursor")
+    @SuppressWarnings("unchecked")
+    public void shouldReturnUsersWindowInRequestedOrderWhenPagingBackward() {
+        var cursor = UserCursor.before(UserDataHelper.getSergioRamos(), UserSortField.ID, Sort.Direction.ASC);
+
+        when(userRepository.findBy(any(Specification.class), any()))
+                .thenReturn(List.of(UserDataHelper.getArsenWenger()));
+
+        var usersResult = userService.getAllUsers(cursor, 2);
 
+        assertThat(usersResult.content()).containsExactly(UserDataHelper.getArsenWenger());
+        assertThat(usersResult.hasNext()).isTrue();
+        assertThat(usersResult.hasPrevious()).isFalse();
     }
 
     @Test
@@ -97,29 +438,118 @@ class UserServiceImplTest {
         when(userRepository.findById(eq(999L)))
                 .thenReturn(Optional.empty());
 
-        assertThrows(
+        var exception = assertThrows(
                 NoSuchElementException.class, () -> userService.findUserById(999L)
         );
+        assertThat(exception.getStackTrace()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Successful case of find user by email in different case")
+    public void shouldSuccessfullyFindUserByEmailIgnoringCase() {
+        when(userRepository.findByEmail(eq("sergio@madrid.com")))
+                .thenReturn(Optional.of(UserDataHelper.getSergioRamos()));
+
+        var usersResult = userService.findUserByEmail(" Sergio@Madrid.COM ");
+
+        assertThat(usersResult).isEqualTo(UserDataHelper.getSergioRamos());
+        verify(userRepository, times(1)).findByEmail(eq("sergio@madrid.com"));
+    }
+
+    @Test
+    @DisplayName("Unsuccessful case of find user by email")
+    public void shouldThrowAnExceptionWhenTryToFindUserByUnknownEmail() {
+        when(userRepository.findByEmail(eq("unknown@madrid.com")))
+                .thenReturn(Optional.empty());
+
+        assertThrows(
+                NoSuchElementException.class, () -> userService.findUserByEmail("unknown@madrid.com")
+        );
+    }
+
+    @Test
+    @DisplayName("Successful case of find users by emails with one query for normalized distinct emails")
+    public void shouldFindUsersByNormalizedDistinctEmails() {
+        ReflectionTestUtils.setField(userService, "batchMaxSize", 10);
+        when(userRepository.findAllByEmailIn(eq(Set.of("sergio@madrid.com", "awenger@gunners.com"))))
+                .thenReturn(List.of(UserDataHelper.getSergioRamos(), UserDataHelper.getArsenWenger()));
+
+        var usersResult = userService.findUsersByEmails(
+                List.of("Sergio@Madrid.com", "sergio@madrid.com", "AWENGER@gunners.com"));
+
+        assertThat(usersResult).hasSize(2);
+        verify(userRepository, times(1)).findAllByEmailIn(anyCollection());
+    }
+
+    @Test
+    @DisplayName("Successful case of find users by ids in request order with missing ids")
+    public void shouldFindUsersByIdsInRequestOrder() {
+        var wenger = UserDataHelper.getArsenWenger();
+        var cantona = UserDataHelper.getEricCantona();
+        ReflectionTestUtils.setField(userService, "batchMaxIds", 5);
+
+        when(userJdbcRepository.findAllByIds(eq(Set.of(7L, 9L, 2L)))).thenReturn(List.of(wenger, cantona));
+
+        var lookup = userService.findUsersByIds(Arrays.asList(7L, 9L, null, 7L, 2L));
+
+        assertThat(lookup.users()).containsExactly(cantona, wenger);
+        assertThat(lookup.missingIds()).containsExactly(9L);
+        verify(userJdbcRepository, times(1)).findAllByIds(anyCollection());
+    }
+
+    @Test
+    @DisplayName("Unsuccessful case of find users by too many ids")
+    public void shouldThrowAnExceptionWhenFindUsersByTooManyIds() {
+        ReflectionTestUtils.setField(userService, "batchMaxIds", 2);
+
+        assertThrows(RequestLimitExceededException.class, () -> userService.findUsersByIds(List.of(1L, 2L, 3L)));
+        verifyNoInteractions(userJdbcRepository);
     }
 
     @Test
     @DisplayName("Successful case of find users by date range")
+    @SuppressWarnings("unchecked")
     public void shouldSuccessfullyFindUsersByDateRange() {
         var startDate = LocalDate.of(1945, 1, 1);
         var endDate = LocalDate.of(1955, 1, 1);
         var pageable = PageRequest.of(1, 10, Sort.Direction.DESC, UserSortField.ID.getDatabaseFieldName());
-        var userPage = new PageImpl<>(List.of(UserDataHelper.getArsenWenger()), PageRequest.of(0, 10), 1);
+        var userDto = UserDataHelper.convertUserToUserDto(UserDataHelper.getArsenWenger());
+        var userPage = new PageImpl<>(List.of(userDto), PageRequest.of(0, 10), 1);
+
+        when(userRepository.findAllDto(any(Specification.class), eq(pageable)))
+                .thenReturn(userPage);
+
+        var usersResult = userService.getAllUsers(pageable,
+                new UserFilter(startDate, endDate, null, null, null, null, null));
+
+        assertThat(usersResult).isNotNull();
+        assertThat(usersResult.getContent()).isNotNull();
+        assertThat(usersResult.getContent().size()).isEqualTo(1);
+        assertThat(usersResult.getContent().get(0)).isEqualTo(userDto);
+        verify(userRepository, times(1)).findAllDto(any(Specification.class), eq(pageable));
+    }
+
+    @Test
+    @DisplayName("Successful case of find users by an open-ended date range")
+    @SuppressWarnings("unchecked")
+    public void shouldSuccessfullyFindUsersByOpenEndedDateRange() {
+        var startDate = LocalDate.of(1945, 1, 1);
+        var pageable = PageRequest.of(1, 10, Sort.Direction.DESC, UserSortField.ID.getDatabaseFieldName());
+        var userDto = UserDataHelper.convertUserToUserDto(UserDataHelper.getArsenWenger());
+        var userPage = new PageImpl<>(List.of(userDto), PageRequest.of(0, 10), 1);
 
-        when(userRepository.findAllByBirthDateBetween(eq(startDate), eq(endDate), eq(pageable)))
+        when(userRepository.findAllDto(any(Specification.class), eq(pageable)))
                 .thenReturn(userPage);
 
-        var usersResult = userService.getAllUsersByDateRange(pageable, startDate, endDate);
+        var usersResult = userService.getAllUsers(pageable,
+                new UserFilter(startDate, null, null, null, null, null, null));
 
         assertThat(usersResult).isNotNull();
         assertThat(usersResult.getContent()).isNotNull();
         assertThat(usersResult.getContent().size()).isEqualTo(1);
-        assertThat(usersResult.getContent().get(0)).isEqualTo(UserDataHelper.getArsenWenger());
-        verify(userRepository, times(1)).findAllByBirthDateBetween(eq(startDate), eq(endDate), eq(pageable));
+        assertThat(usersResult.getContent().get(0)).isEqualTo(userDto);
+        verify(userRepository, times(1)).findAllDto(any(Specification.class), eq(pageable));
+        verify(userRepository, times(0)).findAllDtoBy(any());
     }
 
     @Test
@@ -130,7 +560,8 @@ class UserServiceImplTest {
         var pageable = PageRequest.of(1, 10, Sort.Direction.DESC, UserSortField.ID.getDatabaseFieldName());
 
         assertThrows(
-                InvalidDateRangeException.class, () -> userService.getAllUsersByDateRange(pageable, startDate, endDate)
+                InvalidDateRangeException.class, () -> userService.getAllUsers(pageable,
+                        new UserFilter(startDate, endDate, null, null, null, null, null))
         );
     }
 
@@ -141,14 +572,47 @@ class UserServiceImplTest {
         userToUpdate.setEmail("updated@gunners.com");
         userToUpdate.setPhoneNumber("9765432112");
         var userDto = UserDataHelper.convertUserToUserDto(userToUpdate);
+        var changes = UserDataHelper.getArsenWenger();
+        changes.setId(null);
 
-        when(userRepository.findById(eq(2L)))
-                .thenReturn(Optional.of(UserDataHelper.getArsenWenger()));
+        when(userMapper.fromDto(eq(userDto))).thenReturn(changes);
+        when(userJdbcRepository.updateNonNullFields(eq(2L), eq(changes), isNull()))
+                .thenReturn(Optional.of(userToUpdate));
 
-        var updateUser = userService.updateUser(userDto, 2L);
+        var updateUser = userService.updateUser(userDto, 2L, null);
 
         assertThat(updateUser).isNotNull();
         assertThat(updateUser).isEqualTo(userToUpdate);
+        verify(userRepository, times(0)).findById(anyLong());
+    }
+
+    @Test
+    @DisplayName("Unsuccessful case of user update with not existing id")
+    public void shouldThrowAnExceptionWhenUpdateNotExistingUser() {
+        var userDto = new UserDto();
+
+        when(userMapper.fromDto(eq(userDto))).thenReturn(new User());
+        when(userJdbcRepository.updateNonNullFields(eq(99L), any(User.class), isNull()))
+                .thenReturn(Optional.empty());
+
+        assertThrows(
+                NoSuchElementException.class, () -> userService.updateUser(userDto, 99L, null)
+        );
+    }
+
+    @Test
+    @DisplayName("Unsuccessful case of user update with outdated version")
+    public void shouldThrowAnExceptionWhenUpdateOutdatedUserVersion() {
+        var userDto = new UserDto();
+
+        when(userMapper.fromDto(eq(userDto))).thenReturn(new User());
+        when(userJdbcRepository.updateNonNullFields(eq(2L), any(User.class), eq(3L)))
+                .thenReturn(Optional.empty());
+        when(userRepository.existsById(eq(2L))).thenReturn(true);
+
+        assertThrows(
+                PreconditionFailedException.class, () -> userService.updateUser(userDto, 2L, 3L)
+        );
     }
 
     @Test
@@ -160,7 +624,7 @@ class UserServiceImplTest {
         when(userRepository.findById(eq(2L)))
                 .thenReturn(Optional.of(UserDataHelper.getArsenWenger()));
 
-        var updateUser = userService.replaceUser(userDto, 2L);
+        var updateUser = userService.replaceUser(userDto, 2L, null);
 
         assertThat(updateUser).isNotNull();
         assertThat(updateUser.getId()).isEqualTo(2L);
@@ -172,14 +636,39 @@ class UserServiceImplTest {
         assertThat(updateUser.getPhoneNumber()).isEqualTo(userToReplace.getPhoneNumber());
     }
 
+    @Test
+    @DisplayName("Unsuccessful case of user replacement with outdated version")
+    public void shouldThrowAnExceptionWhenReplaceOutdatedUserVersion() {
+        var arsen = UserDataHelper.getArsenWenger();
+        arsen.setVersion(4L);
+        var userPayload = UserDataHelper.convertUserToCreateUpdateUserPayload(UserDataHelper.getEricCantona());
+
+        when(userRepository.findById(eq(2L))).thenReturn(Optional.of(arsen));
+
+        assertThrows(
+                PreconditionFailedException.class, () -> userService.replaceUser(userPayload, 2L, 3L)
+        );
+        assertThat(arsen.getEmail()).isEqualTo(UserDataHelper.getArsenWenger().getEmail());
+    }
+
     @Test
     @DisplayName("Successful case of user delete")
     public void shouldSuccessfullyDeleteUser() {
-        when(userRepository.findById(eq(2L)))
-                .thenReturn(Optional.of(UserDataHelper.getArsenWenger()));
+        when(userRepository.deleteUserById(eq(2L))).thenReturn(1);
 
         userService.deleteUserById(2L);
 
-        verify(userRepository, times(1)).delete(eq(UserDataHelper.getArsenWenger()));
+        verify(userRepository, times(1)).deleteUserById(eq(2L));
+        verify(userRepository, times(0)).findById(anyLong());
+    }
+
+    @Test
+    @DisplayName("Unsuccessful case of user delete with not existing id")
+    public void shouldThrowAnExceptionWhenDeleteNotExistingUser() {
+        when(userRepository.deleteUserById(eq(99L))).thenReturn(0);
+
+        assertThrows(
+                NoSuchElementException.class, () -> userService.deleteUserById(99L)
+        );
     }
 }
\ No newline at end of file